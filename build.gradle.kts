@@ -2,6 +2,7 @@ plugins {
 	java
 	id("org.springframework.boot") version "3.5.8"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.cds"
@@ -45,4 +46,14 @@ dependencies {
 
 tasks.withType<Test> {
 	useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// ./gradlew jmh [-PjmhIncludes=QRCodeUtil] writes build/results/jmh/results-<version>.json
+jmh {
+	warmupIterations = 3
+	iterations = 5
+	fork = 1
+	resultFormat = "JSON"
+	resultsFile = layout.buildDirectory.file("results/jmh/results-${project.version}.json")
+	(project.findProperty("jmhIncludes") as String?)?.let { includes = listOf(it) }
+}
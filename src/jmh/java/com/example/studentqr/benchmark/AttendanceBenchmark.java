@@ -0,0 +1,109 @@
+package com.example.studentqr.benchmark;
+
+import com.example.studentqr.StudentQrCodeApplication;
+import com.example.studentqr.model.Attendance;
+import com.example.studentqr.model.Student;
+import com.example.studentqr.service.AttendanceService;
+import com.example.studentqr.service.HolidayService;
+import com.example.studentqr.service.StudentService;
+import com.example.studentqr.util.QRPayloadCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Scan path against the real service layer on an in-memory H2 database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AttendanceBenchmark {
+
+    private static final int STUDENTS = 500;
+
+    private ConfigurableApplicationContext context;
+    private AttendanceService attendanceService;
+    private final List<String> studentIds = new ArrayList<>();
+    private String compactPayload;
+    private String legacyPayload;
+    private String rescanPayload;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SpringApplication application = new SpringApplication(StudentQrCodeApplication.class);
+        context = application.run(
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--qr.directory=" + BenchmarkSupport.tempDirectory("attendance-bench"));
+
+        // markAttendance records the current user; JMH threads differ from the setup thread
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "benchmark", null, AuthorityUtils.createAuthorityList("ROLE_TEACHER")));
+
+        // Whatever today is, make it a school day for the benchmark
+        HolidayService holidayService = context.getBean(HolidayService.class);
+        holidayService.getHolidaysForDate(LocalDate.now()).forEach(holiday -> {
+            holiday.setActive(false);
+            holidayService.saveHoliday(holiday);
+        });
+
+        StudentService studentService = context.getBean(StudentService.class);
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student(null, "Student " + i, "student" + i + "@example.com",
+                    "Course " + (i % 8), String.format("BN%05d", i));
+            studentIds.add(studentService.saveStudent(student).getId());
+        }
+
+        attendanceService = context.getBean(AttendanceService.class);
+        compactPayload = context.getBean(QRPayloadCodec.class).encode(studentIds.get(0));
+        legacyPayload = "=== STUDENT INFORMATION ===\nID: " + studentIds.get(0) + "\nName: Student 0\n"
+                + "Email: student0@example.com\nCourse: Course 0\nRoll Number: BN00000\n===========================";
+
+        // Kept out of studentIds so markAttendance never changes its status
+        String rescanId = studentService.saveStudent(new Student(null, "Rescan Student", "rescan@example.com",
+                "Course 0", "BN99999")).getId();
+        attendanceService.markAttendance(rescanId, "PRESENT", null);
+        rescanPayload = context.getBean(QRPayloadCodec.class).encode(rescanId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String extractCompactIdentifier() {
+        return attendanceService.extractStudentIdentifier(compactPayload);
+    }
+
+    @Benchmark
+    public String extractLegacyIdentifier() {
+        return attendanceService.extractStudentIdentifier(legacyPayload);
+    }
+
+    // One full mark: holiday check, student lookup and upsert. The status flips on every pass over
+    // the students so the re-scan short-circuit never applies.
+    @Benchmark
+    public Attendance markAttendance() {
+        int n = next++;
+        String status = (n / STUDENTS) % 2 == 0 ? "PRESENT" : "LATE";
+        return attendanceService.markAttendance(studentIds.get(n % STUDENTS), status, null);
+    }
+
+    // The same card scanned again: answered from the marked-student bitmap without a statement
+    @Benchmark
+    public AttendanceService.ScanResult rescanMarkedStudent() {
+        return attendanceService.scan(rescanPayload, "PRESENT", null);
+    }
+}
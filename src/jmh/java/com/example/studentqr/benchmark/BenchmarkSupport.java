@@ -0,0 +1,60 @@
+package com.example.studentqr.benchmark;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    static Path tempDirectory(String prefix) throws IOException {
+        Path dir = Files.createTempDirectory(prefix);
+        dir.toFile().deleteOnExit();
+        return dir;
+    }
+
+    // Synthetic webcam capture: smooth background, a face-sized shape and sensor noise,
+    // encoded at the quality browsers use for canvas.toDataURL("image/jpeg")
+    static byte[] webcamJpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setPaint(new GradientPaint(0, 0, new Color(70, 90, 120), width, height, new Color(200, 190, 170)));
+        g.fillRect(0, 0, width, height);
+        g.setColor(new Color(224, 172, 140));
+        g.fillOval(width / 3, height / 6, width / 3, height / 2);
+        g.setColor(new Color(40, 40, 60));
+        g.fillRect(width / 4, height * 2 / 3, width / 2, height / 3);
+        g.dispose();
+
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                int noise = random.nextInt(17) - 8;
+                int r = clamp(((rgb >> 16) & 0xFF) + noise);
+                int gr = clamp(((rgb >> 8) & 0xFF) + noise);
+                int b = clamp((rgb & 0xFF) + noise);
+                image.setRGB(x, y, (r << 16) | (gr << 8) | b);
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "JPEG", out);
+        return out.toByteArray();
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
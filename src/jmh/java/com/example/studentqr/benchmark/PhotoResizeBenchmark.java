@@ -0,0 +1,73 @@
+package com.example.studentqr.benchmark;
+
+import com.example.studentqr.util.ImageResizer;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+// Compares the old full decode + drawImage thumbnail path against ImageResizer
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PhotoResizeBenchmark {
+
+    private static final int[] RENDITIONS = {64, 100, 300, 1024};
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    private String capture;
+
+    @Param({"100", "300"})
+    private int width;
+
+    private byte[] photo;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String[] dimensions = capture.split("x");
+        photo = BenchmarkSupport.webcamJpeg(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+    }
+
+    @Benchmark
+    public byte[] legacyThumbnail() throws Exception {
+        return legacy(photo, width);
+    }
+
+    @Benchmark
+    public byte[] imageResizer() throws Exception {
+        return ImageResizer.resize(photo, width);
+    }
+
+    // The full rendition set as rendered at upload time: four decodes before, one now
+    @Benchmark
+    public int legacyRenditionSet() throws Exception {
+        int total = 0;
+        for (int rendition : RENDITIONS) {
+            total += legacy(photo, rendition).length;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public byte[][] imageResizerRenditionSet() throws Exception {
+        return ImageResizer.resizeAll(photo, RENDITIONS);
+    }
+
+    private static byte[] legacy(byte[] imageBytes, int maxWidth) throws Exception {
+        BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
+        int newHeight = (int) ((double) originalImage.getHeight() / originalImage.getWidth() * maxWidth);
+
+        BufferedImage resizedImage = new BufferedImage(maxWidth, newHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resizedImage.createGraphics();
+        g.drawImage(originalImage, 0, 0, maxWidth, newHeight, null);
+        g.dispose();
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(resizedImage, "JPEG", baos);
+        return baos.toByteArray();
+    }
+}
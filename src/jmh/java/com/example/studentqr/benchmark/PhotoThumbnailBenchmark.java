@@ -0,0 +1,48 @@
+package com.example.studentqr.benchmark;
+
+import com.example.studentqr.util.QRCodeCache;
+import com.example.studentqr.util.QRCodeStore;
+import com.example.studentqr.util.QRCodeUtil;
+import com.example.studentqr.util.QRPayloadCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// generatePhotoThumbnail on webcam-sized captures at the list (100) and view (300) widths
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PhotoThumbnailBenchmark {
+
+    @Param({"640x480", "1280x720"})
+    private String capture;
+
+    @Param({"100", "300"})
+    private int width;
+
+    private AnnotationConfigApplicationContext context;
+    private QRCodeUtil qrCodeUtil;
+    private byte[] photo;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty("qr.directory", BenchmarkSupport.tempDirectory("photo-bench").toString());
+        context = new AnnotationConfigApplicationContext(
+                QRCodeUtil.class, QRCodeCache.class, QRPayloadCodec.class, QRCodeStore.class);
+        qrCodeUtil = context.getBean(QRCodeUtil.class);
+
+        String[] dimensions = capture.split("x");
+        photo = BenchmarkSupport.webcamJpeg(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generatePhotoThumbnail() throws Exception {
+        return qrCodeUtil.generatePhotoThumbnail(photo, width);
+    }
+}
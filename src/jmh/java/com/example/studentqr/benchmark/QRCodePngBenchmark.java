@@ -0,0 +1,46 @@
+package com.example.studentqr.benchmark;
+
+import com.example.studentqr.util.BitMatrixPngEncoder;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+// Compares the old BufferedImage + ImageIO path against the direct 1-bit PNG encoder
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QRCodePngBenchmark {
+
+    @Param({"100", "300", "350"})
+    private int size;
+
+    private BitMatrix matrix;
+
+    @Setup
+    public void setUp() throws Exception {
+        String payload = "ID: 5f0c3a9e-1b7d-4c2a-9e8f-2d6b4a1c7e93\nName: Jane Doe\n"
+                + "Email: jane.doe@example.com\nCourse: Computer Science\nRoll: CS2025-0142";
+        matrix = new QRCodeWriter().encode(payload, BarcodeFormat.QR_CODE, size, size);
+    }
+
+    @Benchmark
+    public byte[] imageIO() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(MatrixToImageWriter.toBufferedImage(matrix), "PNG", baos);
+        return baos.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] directEncoder() {
+        return BitMatrixPngEncoder.encode(matrix);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.studentqr.benchmark;
+
+import com.example.studentqr.util.QRCodeCache;
+import com.example.studentqr.util.QRCodeStore;
+import com.example.studentqr.util.QRCodeUtil;
+import com.example.studentqr.util.QRPayloadCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// generateQRCodeBase64 at the sizes used by the list (100), view (300) and printed card (350)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QRCodeUtilBenchmark {
+
+    @Param({"100", "300", "350"})
+    private int size;
+
+    private AnnotationConfigApplicationContext context;
+    private QRCodeUtil qrCodeUtil;
+    private String payload;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty("qr.directory", BenchmarkSupport.tempDirectory("qr-bench").toString());
+        context = new AnnotationConfigApplicationContext(
+                QRCodeUtil.class, QRCodeCache.class, QRPayloadCodec.class, QRCodeStore.class);
+        qrCodeUtil = context.getBean(QRCodeUtil.class);
+        payload = context.getBean(QRPayloadCodec.class).encode("5f0c3a9e-1b7d-4c2a-9e8f-2d6b4a1c7e93");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Every call uses a new payload, so this measures encode + PNG + Base64
+    @Benchmark
+    public String uncached() throws Exception {
+        return qrCodeUtil.generateQRCodeBase64(payload + (counter++), size, size);
+    }
+
+    // Same payload every time: the list/view page steady state
+    @Benchmark
+    public String cached() throws Exception {
+        return qrCodeUtil.generateQRCodeBase64(payload, size, size);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.studentqr.benchmark;
+
+import com.example.studentqr.model.Student;
+import com.example.studentqr.service.StudentSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Old per-search scan with four toLowerCase().contains() per student against the trigram index
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StudentSearchBenchmark {
+
+    private static final String[] FIRST = {"Aarav", "Priya", "Rohan", "Ananya", "Vikram", "Sneha", "Arjun", "Kavya"};
+    private static final String[] LAST = {"Sharma", "Patel", "Reddy", "Iyer", "Gupta", "Nair", "Singh", "Das"};
+    private static final String[] COURSES = {"Computer Science", "Mechanical", "Electrical", "Civil", "Biotech"};
+
+    @Param({"100000"})
+    private int students;
+
+    // Roll number, rare name fragment, common name fragment, short query
+    @Param({"CS2024012345", "ananya nair", "sharma", "ve"})
+    private String query;
+
+    private List<Student> roster;
+    private StudentSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        roster = new ArrayList<>(students);
+        index = new StudentSearchIndex();
+        Field maxResults = StudentSearchIndex.class.getDeclaredField("maxResults");
+        maxResults.setAccessible(true);
+        maxResults.setInt(index, 200);
+
+        for (int i = 0; i < students; i++) {
+            String name = FIRST[i % FIRST.length] + " " + LAST[(i / FIRST.length) % LAST.length] + " " + i;
+            Student student = new Student();
+            student.setId("id-" + i);
+            student.setName(name);
+            student.setEmail(name.toLowerCase().replace(' ', '.') + "@example.edu");
+            student.setCourse(COURSES[i % COURSES.length]);
+            student.setRollNumber(String.format("CS2024%06d", i));
+            roster.add(student);
+            index.onStudentSaved(student);
+        }
+    }
+
+    @Benchmark
+    public int legacyScan() {
+        String searchTerm = query.toLowerCase();
+        return (int) roster.stream()
+                .filter(student ->
+                        student.getName().toLowerCase().contains(searchTerm) ||
+                        student.getRollNumber().toLowerCase().contains(searchTerm) ||
+                        student.getEmail().toLowerCase().contains(searchTerm) ||
+                        student.getCourse().toLowerCase().contains(searchTerm))
+                .count();
+    }
+
+    @Benchmark
+    public List<String> trigramIndex() {
+        return index.search(query);
+    }
+}
@@ -26,8 +26,8 @@ public class SecurityConfig {
 
                         // Student pages
                         .requestMatchers("/student/list", "/student/view/**").hasAnyRole("USER", "TEACHER", "ADMIN")
-                        .requestMatchers("/student/download/**", "/student/regenerate/**").hasAnyRole("TEACHER", "ADMIN")
-                        .requestMatchers("/student/form", "/student/generate-qr", "/student/delete/**").hasRole("ADMIN")
+                        .requestMatchers("/student/download/**", "/student/regenerate/**", "/student/bulk-qr/**").hasAnyRole("TEACHER", "ADMIN")
+                        .requestMatchers("/student/form", "/student/generate-qr", "/student/delete/**", "/student/import").hasRole("ADMIN")
 
                         // Attendance pages
                         .requestMatchers("/attendance/**").hasAnyRole("TEACHER", "ADMIN")
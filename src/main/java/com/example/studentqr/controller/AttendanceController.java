@@ -1,22 +1,37 @@
 package com.example.studentqr.controller;
 
 import com.example.studentqr.model.Holiday;
-import com.example.studentqr.model.Student;
 import com.example.studentqr.service.AttendanceService;
+import com.example.studentqr.service.AttendanceSyncService;
+import com.example.studentqr.service.AttendanceWriteBuffer;
+import com.example.studentqr.service.CourseDirectory;
 import com.example.studentqr.service.HolidayService;
+import com.example.studentqr.service.MarkedStudentBitmap;
+import com.example.studentqr.service.QRFrameDecodeService;
+import com.example.studentqr.service.StudentIdentifierResolver;
+import com.example.studentqr.service.StudentLookupTrie;
 import com.example.studentqr.service.StudentService;
+import com.example.studentqr.util.QRFrameDecoder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/attendance")
@@ -32,6 +47,27 @@ public class AttendanceController {
     @Autowired
     private HolidayService holidayService;
 
+    @Autowired
+    private StudentLookupTrie studentLookupTrie;
+
+    @Autowired
+    private StudentIdentifierResolver studentIdentifierResolver;
+
+    @Autowired
+    private CourseDirectory courseDirectory;
+
+    @Autowired
+    private AttendanceWriteBuffer attendanceWriteBuffer;
+
+    @Autowired
+    private MarkedStudentBitmap markedStudentBitmap;
+
+    @Autowired
+    private AttendanceSyncService attendanceSyncService;
+
+    @Autowired
+    private QRFrameDecodeService qrFrameDecodeService;
+
     // ==== MARK ATTENDANCE PAGE ====
     @GetMapping("/mark")
     public String markAttendancePage(Model model) {
@@ -121,6 +157,48 @@ public class AttendanceController {
         return "redirect:/attendance/mark";
     }
 
+    // ==== STUDENT LOOKUP (typeahead for manual entry) ====
+    // The ETag is the roster version, so repeated keystrokes revalidate with a 304 until a student changes
+    @GetMapping("/api/lookup")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> lookupStudents(@RequestParam(defaultValue = "") String q,
+                                                              @RequestParam(defaultValue = "0") int limit,
+                                                              WebRequest webRequest) {
+        String etag = "\"" + studentLookupTrie.getVersion() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("query", q);
+        response.put("results", studentLookupTrie.lookup(q, limit));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(response);
+    }
+
+    @GetMapping("/api/write-behind/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public Map<String, Object> getWriteBehindStats() {
+        return attendanceWriteBuffer.getStats();
+    }
+
+    @GetMapping("/api/resolver/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public Map<String, Object> getResolverStats() {
+        return studentIdentifierResolver.getStats();
+    }
+
+    @GetMapping("/api/marked-bitmap/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public Map<String, Object> getMarkedBitmapStats() {
+        return markedStudentBitmap.getStats();
+    }
+
     // ==== MARK ATTENDANCE BY QR ====
     @PostMapping("/mark-by-qr")
     public String markAttendanceByQR(@RequestParam String qrData,
@@ -165,6 +243,159 @@ public class AttendanceController {
         return "redirect:/attendance/mark";
     }
 
+    // ==== SCAN API (kiosks) ====
+    // One round trip per scan: no redirect and no page render. The response carries the student and
+    // the previous status so the page can update its list and counters itself.
+    @PostMapping("/api/scan")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> scanAPI(@RequestParam(required = false) String qrData,
+                                                       @RequestParam(required = false) String studentIdentifier,
+                                                       @RequestParam(defaultValue = "PRESENT") String status,
+                                                       @RequestParam(required = false) String remarks) {
+        Map<String, Object> response = new HashMap<>();
+        String data = (qrData != null && !qrData.isBlank()) ? qrData : studentIdentifier;
+        String targetStatus = status.trim().toUpperCase();
+
+        if (data == null || data.isBlank()) {
+            response.put("success", false);
+            response.put("message", "Scan a QR code or enter a student ID / roll number");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (!AttendanceService.SCAN_STATUSES.contains(targetStatus)) {
+            response.put("success", false);
+            response.put("message", "Unknown status: " + status);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            putScanResult(response, attendanceService.scan(data, targetStatus, remarks));
+            return ResponseEntity.ok(response);
+        } catch (AttendanceWriteBuffer.BufferFullException e) {
+            // Write-behind backpressure; the scan itself was fine
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1").body(response);
+        } catch (AttendanceService.LaterMarkExistsException e) {
+            // Valid scan, but the stored mark is newer; the page must not count it as marked
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    private static void putScanResult(Map<String, Object> response, AttendanceService.ScanResult result) {
+        response.put("success", true);
+        response.put("student", result.student());
+        response.put("status", result.status());
+        response.put("previousStatus", result.previousStatus());
+        response.put("markedAt", result.markedAt());
+        response.put("queued", result.queued());
+        response.put("duplicate", result.duplicate());
+        response.put("message", (result.duplicate() ? "Already marked " : "Marked ") + result.status()
+                + ": " + result.student().name() + " (" + result.student().rollNumber() + ")");
+    }
+
+    // ==== FRAME DECODE API (kiosks without an in-browser decoder) ====
+    // A JPEG camera frame is decoded on the server; a code that is found is marked exactly like
+    // /api/scan. A frame without a code is not an error, the kiosk just sends the next one.
+    @PostMapping("/api/decode-frame")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> decodeFrameAPI(@RequestParam MultipartFile frame,
+                                                              @RequestParam(defaultValue = "PRESENT") String status,
+                                                              @RequestParam(required = false) String remarks,
+                                                              @RequestParam(required = false) Double roiX,
+                                                              @RequestParam(required = false) Double roiY,
+                                                              @RequestParam(required = false) Double roiWidth,
+                                                              @RequestParam(required = false) Double roiHeight) {
+        long started = System.nanoTime();
+        Map<String, Object> response = new HashMap<>();
+        String targetStatus = status.trim().toUpperCase();
+        if (!AttendanceService.SCAN_STATUSES.contains(targetStatus)) {
+            response.put("success", false);
+            response.put("message", "Unknown status: " + status);
+            return ResponseEntity.badRequest().body(response);
+        }
+        QRFrameDecoder.Region region = (roiX != null && roiY != null && roiWidth != null && roiHeight != null)
+                ? new QRFrameDecoder.Region(roiX, roiY, roiWidth, roiHeight)
+                : qrFrameDecodeService.defaultRegion();
+
+        try {
+            QRFrameDecodeService.FrameResult decoded = qrFrameDecodeService.decode(frame.getBytes(), region);
+            response.put("found", decoded.text() != null);
+            response.put("decodeMs", decoded.decodeMicros() / 1000.0);
+            response.put("decodedWidth", decoded.width());
+            response.put("decodedHeight", decoded.height());
+            if (decoded.text() == null) {
+                response.put("success", false);
+                response.put("message", "No QR code in frame");
+            } else {
+                putScanResult(response, attendanceService.scan(decoded.text(), targetStatus, remarks));
+            }
+            response.put("totalMs", (System.nanoTime() - started) / 1e6);
+            return ResponseEntity.ok(response);
+        } catch (QRFrameDecodeService.DecoderBusyException | AttendanceWriteBuffer.BufferFullException e) {
+            // Decode pool saturated or too slow, or write-behind full; nothing wrong with the frame itself
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1").body(response);
+        } catch (AttendanceService.LaterMarkExistsException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            response.put("totalMs", (System.nanoTime() - started) / 1e6);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            response.put("totalMs", (System.nanoTime() - started) / 1e6);
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/api/decode-frame/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public Map<String, Object> getFrameDecodeStats() {
+        return qrFrameDecodeService.getStats();
+    }
+
+    // ==== OFFLINE SYNC API (kiosks) ====
+    // Scans a kiosk queued while offline, in batches. Each scan is applied on the day it was taken;
+    // the results say which keys the kiosk can drop (all of them, unless the whole request failed).
+    @PostMapping("/api/sync")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> syncAPI(@RequestBody AttendanceSyncService.SyncBatch batch) {
+        Map<String, Object> response = new HashMap<>();
+        if (batch.scans() == null || batch.scans().isEmpty()) {
+            response.put("success", false);
+            response.put("message", "No scans to sync");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (batch.scans().size() > attendanceSyncService.getMaxBatchSize()) {
+            response.put("success", false);
+            response.put("message", "At most " + attendanceSyncService.getMaxBatchSize() + " scans per batch");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        String deviceId = batch.deviceId() == null || batch.deviceId().isBlank() ? "unknown"
+                : batch.deviceId().substring(0, Math.min(batch.deviceId().length(), 100));
+        List<AttendanceSyncService.SyncResult> results = attendanceSyncService.sync(deviceId, batch.scans());
+        Map<String, Long> outcomes = new HashMap<>();
+        results.forEach(result -> outcomes.merge(result.outcome(), 1L, Long::sum));
+
+        response.put("success", true);
+        response.put("deviceId", deviceId);
+        response.put("received", results.size());
+        response.put("outcomes", outcomes);
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+
     // ==== VIEW ATTENDANCE RECORDS ====
     @GetMapping("/records")
     public String viewRecords(Model model,
@@ -179,12 +410,8 @@ public class AttendanceController {
         model.addAttribute("attendanceSummary",
                 attendanceService.getAttendanceSummary(targetDate));
 
-        // Get all courses for filter
-        List<String> courses = studentService.getAllStudents().stream()
-                .map(Student::getCourse)
-                .distinct()
-                .toList();
-        model.addAttribute("courses", courses);
+        // Course filter comes from the maintained directory, not the roster
+        model.addAttribute("courses", courseDirectory.getCourses());
 
         return "attendance-records";
     }
@@ -227,6 +454,9 @@ public class AttendanceController {
         if (targetCourse != null) {
             model.addAttribute("courseSummary",
                     attendanceService.getCourseWiseSummary(targetCourse, targetDate));
+        } else {
+            model.addAttribute("courseBreakdown",
+                    attendanceService.getCourseBreakdown(targetDate));
         }
 
         model.addAttribute("selectedDate", targetDate);
@@ -234,12 +464,8 @@ public class AttendanceController {
         model.addAttribute("overallSummary",
                 attendanceService.getAttendanceSummary(targetDate));
 
-        // Get all courses for filter
-        List<String> courses = studentService.getAllStudents().stream()
-                .map(Student::getCourse)
-                .distinct()
-                .toList();
-        model.addAttribute("courses", courses);
+        // Course filter comes from the maintained directory, not the roster
+        model.addAttribute("courses", courseDirectory.getCourses());
 
         return "attendance-report";
     }
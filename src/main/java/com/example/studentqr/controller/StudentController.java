@@ -1,78 +1,113 @@
 package com.example.studentqr.controller;
 
 import com.example.studentqr.model.Student;
+import com.example.studentqr.model.StudentPage;
+import com.example.studentqr.model.StudentPhoto;
+import com.example.studentqr.model.StudentPhotoRendition;
+import com.example.studentqr.service.PhotoRenditionService;
+import com.example.studentqr.service.PhotoService;
+import com.example.studentqr.service.QRBulkExportService;
+import com.example.studentqr.service.QRCodeStoreSweeper;
+import com.example.studentqr.service.QRGenerationPipeline;
+import com.example.studentqr.service.RosterVersion;
+import com.example.studentqr.service.StudentExportService;
+import com.example.studentqr.service.StudentImportService;
+import com.example.studentqr.service.StudentSearchIndex;
 import com.example.studentqr.service.StudentService;
+import com.example.studentqr.util.QRCodeCache;
 import com.example.studentqr.util.QRCodeUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.security.access.prepost.PreAuthorize;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipFile;
 
 @Controller
 @RequestMapping("/student")
 public class StudentController {
 
+    private static final int MIN_IMAGE_SIZE = 32;
+    private static final int MAX_IMAGE_SIZE = 1024;
+    // Images are per-user content behind login, so only the browser may cache them
+    private static final CacheControl IMAGE_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.HOURS).cachePrivate();
+
     @Autowired
     private QRCodeUtil qrCodeUtil;
 
     @Autowired
     private StudentService studentService;
 
+    @Autowired
+    private PhotoService photoService;
+
+    @Autowired
+    private PhotoRenditionService photoRenditionService;
+
+    @Autowired
+    private StudentSearchIndex studentSearchIndex;
+
+    @Autowired
+    private StudentExportService studentExportService;
+
+    @Autowired
+    private StudentImportService studentImportService;
+
+    @Autowired
+    private RosterVersion rosterVersion;
+
+    @Autowired
+    private QRCodeCache qrCodeCache;
+
+    @Autowired
+    private QRBulkExportService qrBulkExportService;
+
+    @Autowired
+    private QRGenerationPipeline qrGenerationPipeline;
+
+    @Autowired
+    private QRCodeStoreSweeper qrCodeStoreSweeper;
+
     // ==== SHOW ALL STUDENTS ====
     @GetMapping("/list")
     @PreAuthorize("hasAnyRole('USER', 'TEACHER', 'ADMIN')")
     public String listStudents(Model model,
-                               @RequestParam(required = false) String search) {
-        List<Student> students;
+                               @RequestParam(required = false) String search,
+                               @RequestParam(required = false) String after,
+                               @RequestParam(required = false) String before,
+                               @RequestParam(required = false) Integer size) {
+        List<?> students;
 
         if (search != null && !search.trim().isEmpty()) {
             students = studentService.searchStudents(search);
             model.addAttribute("searchTerm", search);
         } else {
-            students = studentService.getAllStudents();
-        }
-
-        // Create maps for QR codes and photo thumbnails
-        Map<String, String> qrCodeMap = new HashMap<>();
-        Map<String, String> photoThumbnailMap = new HashMap<>();
-
-        for (Student student : students) {
-            try {
-                // Generate QR code data
-                String studentData = String.format(
-                        "ID: %s\nName: %s\nEmail: %s\nCourse: %s\nRoll: %s",
-                        student.getId(),
-                        student.getName(),
-                        student.getEmail(),
-                        student.getCourse(),
-                        student.getRollNumber()
-                );
-
-                // Generate small QR code for list view
-                String smallQR = qrCodeUtil.generateQRCodeBase64(studentData, 100, 100);
-                qrCodeMap.put(student.getId(), smallQR);
-
-                // Generate photo thumbnail if exists
-                if (student.hasPhoto()) {
-                    String thumbnail = qrCodeUtil.generatePhotoThumbnail(student.getPhotoBase64(), 100);
-                    if (thumbnail != null) {
-                        photoThumbnailMap.put(student.getId(), thumbnail);
-                    }
-                }
-
-            } catch (Exception e) {
-                qrCodeMap.put(student.getId(), "error");
-                System.err.println("Error processing student " + student.getId() + ": " + e.getMessage());
-            }
+            StudentPage page = studentService.getStudentPage(after, before, size);
+            students = page.students();
+            model.addAttribute("page", page);
         }
 
+        // QR codes and photos are fetched by the browser from /student/{id}/qr.png and /student/{id}/photo
         model.addAttribute("students", students);
-        model.addAttribute("qrCodeMap", qrCodeMap);
-        model.addAttribute("photoThumbnailMap", photoThumbnailMap);
         model.addAttribute("studentCount", students.size());
         model.addAttribute("totalCount", studentService.getStudentCount());
 
@@ -91,31 +126,29 @@ public class StudentController {
     @PostMapping("/generate-qr")
     @PreAuthorize("hasRole('ADMIN')")
     public String generateQRCode(@ModelAttribute Student student,
-                                 @RequestParam(required = false) String capturedPhoto,
+                                 @RequestParam(required = false) MultipartFile photo,
                                  RedirectAttributes redirectAttributes,
                                  Model model) {
         try {
-            // Process photo
-            String processedPhoto = null;
-            if (capturedPhoto != null && !capturedPhoto.isEmpty()) {
-                if (capturedPhoto.contains(",")) {
-                    processedPhoto = capturedPhoto.split(",")[1];
-                } else {
-                    processedPhoto = capturedPhoto;
-                }
+            // Check the upload before creating the student
+            PhotoService.PhotoUpload upload = null;
+            if (photo != null && !photo.isEmpty()) {
+                upload = photoService.readUpload(photo.getInputStream());
             }
-            student.setPhotoBase64(processedPhoto);
 
-            // Save student
-            Student savedStudent = studentService.saveStudent(student);
+            // Photo state is set by PhotoService, never by the form
+            student.setPhotoAvailable(false);
+            student.setPhotoUpdatedAt(null);
 
-            // Generate QR code
-            String filePath = qrCodeUtil.generateStudentQRCode(savedStudent);
-            savedStudent.setQrCodePath(filePath);
-            studentService.saveStudent(savedStudent);
+            // Save student; the QR code file is generated in the background
+            Student savedStudent = studentService.saveStudent(student);
+            if (upload != null) {
+                photoService.savePhoto(savedStudent.getId(), upload.data(), upload.contentType());
+            }
+            qrGenerationPipeline.enqueue(savedStudent.getId());
 
             redirectAttributes.addFlashAttribute("success", true);
-            redirectAttributes.addFlashAttribute("message", "Student added with photo and QR code generated!");
+            redirectAttributes.addFlashAttribute("message", "Student added with photo, QR code is being generated!");
             return "redirect:/student/list";
 
         } catch (Exception e) {
@@ -125,6 +158,48 @@ public class StudentController {
         }
     }
 
+    // ==== BULK CSV IMPORT ====
+    @GetMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String showImportForm() {
+        return "student-import";
+    }
+
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String importStudents(@RequestParam MultipartFile csv,
+                                 @RequestParam(required = false) MultipartFile photos,
+                                 Model model) {
+        try {
+            model.addAttribute("report", runImport(csv, photos));
+        } catch (Exception e) {
+            model.addAttribute("error", "Import failed: " + e.getMessage());
+        }
+        return "student-import";
+    }
+
+    // Photos arrive as a ZIP that has to be opened by entry name, so it is spooled to a temp file
+    private StudentImportService.ImportReport runImport(MultipartFile csv, MultipartFile photos) throws IOException {
+        if (csv == null || csv.isEmpty()) {
+            throw new IllegalArgumentException("Please choose a CSV file");
+        }
+        Path photosFile = null;
+        try (InputStream in = csv.getInputStream()) {
+            if (photos == null || photos.isEmpty()) {
+                return studentImportService.importCsv(in, null);
+            }
+            photosFile = Files.createTempFile("student-import-", ".zip");
+            photos.transferTo(photosFile);
+            try (ZipFile zip = new ZipFile(photosFile.toFile())) {
+                return studentImportService.importCsv(in, zip);
+            }
+        } finally {
+            if (photosFile != null) {
+                Files.deleteIfExists(photosFile);
+            }
+        }
+    }
+
     // ==== VIEW SINGLE STUDENT WITH PHOTO ====
     @GetMapping("/view/{id}")
     public String viewStudent(@PathVariable String id, Model model) {
@@ -133,33 +208,117 @@ public class StudentController {
             Student student = studentOpt.get();
             model.addAttribute("student", student);
             model.addAttribute("hasPhoto", student.hasPhoto());
-
-            try {
-                String studentData = String.format(
-                        "ID: %s\nName: %s\nEmail: %s\nCourse: %s\nRoll: %s",
-                        student.getId(),
-                        student.getName(),
-                        student.getEmail(),
-                        student.getCourse(),
-                        student.getRollNumber()
-                );
-
-                String qrCodeBase64 = qrCodeUtil.generateQRCodeBase64(studentData, 300, 300);
-                model.addAttribute("qrCodeBase64", qrCodeBase64);
-
-                if (student.hasPhoto()) {
-                    String photoThumbnail = qrCodeUtil.generatePhotoThumbnail(student.getPhotoBase64(), 300);
-                    model.addAttribute("photoThumbnail", photoThumbnail);
-                }
-
-            } catch (Exception e) {
-                model.addAttribute("error", "Could not generate QR code: " + e.getMessage());
+            model.addAttribute("qrCodeUrl", "/student/" + student.getId() + "/qr.png?size=300");
+            if (student.hasPhoto()) {
+                model.addAttribute("photoUrl", "/student/" + student.getId() + "/photo?w=300");
             }
             return "student-view";
         }
         return "redirect:/student/list";
     }
 
+    // ==== QR CODE IMAGE (binary, cacheable) ====
+    @GetMapping("/{id}/qr.png")
+    @PreAuthorize("hasAnyRole('USER', 'TEACHER', 'ADMIN')")
+    public ResponseEntity<byte[]> getQRCodeImage(@PathVariable String id,
+                                                 @RequestParam(defaultValue = "300") int size,
+                                                 WebRequest webRequest) throws Exception {
+        Optional<Student> studentOpt = studentService.getStudentById(id);
+        if (studentOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        int clampedSize = Math.max(MIN_IMAGE_SIZE, Math.min(MAX_IMAGE_SIZE, size));
+        String payload = qrCodeUtil.buildStudentData(studentOpt.get());
+        String etag = toETag(QRCodeCache.key(payload, clampedSize, clampedSize));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        byte[] png = qrCodeUtil.generateQRCodePng(payload, clampedSize, clampedSize, id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .eTag(etag)
+                .cacheControl(IMAGE_CACHE_CONTROL)
+                .body(png);
+    }
+
+    // ==== STUDENT PHOTO (binary, cacheable) ====
+    @GetMapping("/{id}/photo")
+    @PreAuthorize("hasAnyRole('USER', 'TEACHER', 'ADMIN')")
+    public ResponseEntity<byte[]> getPhotoImage(@PathVariable String id,
+                                                @RequestParam(defaultValue = "300") int w,
+                                                WebRequest webRequest) throws Exception {
+        Optional<Student> studentOpt = studentService.getStudentById(id);
+        if (studentOpt.isEmpty() || !studentOpt.get().hasPhoto()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // The ETag comes from the student row, so a revalidation never loads the photo bytes
+        int width = Math.max(MIN_IMAGE_SIZE, Math.min(MAX_IMAGE_SIZE, w));
+        String etag = toETag(QRCodeCache.key(id + "@" + studentOpt.get().getPhotoUpdatedAt(), width, 0));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        // Stored renditions first; scale on the fly only until they have been rendered
+        Optional<StudentPhotoRendition> rendition =
+                photoRenditionService.findRendition(id, width, studentOpt.get().getPhotoUpdatedAt());
+        byte[] jpeg;
+        if (rendition.isPresent()) {
+            jpeg = rendition.get().getData();
+        } else if (photoRenditionService.isUnrenderable(id, studentOpt.get().getPhotoUpdatedAt())) {
+            // Known to be undecodable; do not decode it again on every view
+            return ResponseEntity.notFound().build();
+        } else {
+            Optional<StudentPhoto> photo = photoService.getPhoto(id);
+            if (photo.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            jpeg = qrCodeUtil.generatePhotoThumbnailBytes(photo.get().getData(), width);
+        }
+        if (jpeg == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .eTag(etag)
+                .cacheControl(IMAGE_CACHE_CONTROL)
+                .body(jpeg);
+    }
+
+    // Raw image body (Content-Type image/jpeg or image/png), e.g. from scripts or kiosks
+    @PostMapping(value = "/api/{id}/photo", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> uploadPhoto(@PathVariable String id,
+                                                           HttpServletRequest request) throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        if (studentService.getStudentById(id).isEmpty()) {
+            response.put("success", false);
+            response.put("error", "Student not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        try {
+            PhotoService.PhotoUpload upload = photoService.readUpload(request.getInputStream());
+            StudentPhoto saved = photoService.savePhoto(id, upload.data(), upload.contentType());
+            response.put("success", true);
+            response.put("contentType", saved.getContentType());
+            response.put("size", saved.getSize());
+            response.put("photoUrl", "/student/" + id + "/photo?w=300");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    private static String toETag(String contentKey) {
+        return "\"" + contentKey.replace(':', '-') + "\"";
+    }
+
     // ==== UPDATE STUDENT PHOTO ====
     @GetMapping("/update-photo/{id}")
     public String showUpdatePhotoForm(@PathVariable String id, Model model) {
@@ -173,21 +332,16 @@ public class StudentController {
 
     @PostMapping("/update-photo/{id}")
     public String updatePhoto(@PathVariable String id,
-                              @RequestParam String capturedPhoto,
+                              @RequestParam MultipartFile photo,
                               RedirectAttributes redirectAttributes) {
         Optional<Student> studentOpt = studentService.getStudentById(id);
         if (studentOpt.isPresent()) {
             Student student = studentOpt.get();
             try {
-                if (capturedPhoto != null && !capturedPhoto.isEmpty()) {
-                    // Process the photo
-                    String processedPhoto = capturedPhoto;
-                    if (processedPhoto.contains(",")) {
-                        processedPhoto = processedPhoto.split(",")[1];
-                    }
-
-                    student.setPhotoBase64(processedPhoto);
-                    studentService.saveStudent(student);
+                if (!photo.isEmpty()) {
+                    PhotoService.PhotoUpload upload = photoService.readUpload(photo.getInputStream());
+                    photoService.savePhoto(student.getId(), upload.data(), upload.contentType());
+                    qrGenerationPipeline.enqueue(student.getId());
 
                     redirectAttributes.addFlashAttribute("success", true);
                     redirectAttributes.addFlashAttribute("message", "Photo updated successfully!");
@@ -238,23 +392,12 @@ public class StudentController {
             try {
                 if (student.getQrCodePath() == null) {
                     String filePath = qrCodeUtil.generateStudentQRCode(student);
-                    student.setQrCodePath(filePath);
-                    studentService.saveStudent(student);
+                    studentService.updateQrCodePath(student.getId(), filePath);
                     model.addAttribute("qrCodePath", filePath);
                 } else {
                     model.addAttribute("qrCodePath", student.getQrCodePath());
                 }
-
-                String studentData = String.format(
-                        "ID: %s\nName: %s\nEmail: %s\nCourse: %s\nRoll: %s",
-                        student.getId(),
-                        student.getName(),
-                        student.getEmail(),
-                        student.getCourse(),
-                        student.getRollNumber()
-                );
-                String qrCodeBase64 = qrCodeUtil.generateQRCodeBase64(studentData, 300, 300);
-                model.addAttribute("qrCodeBase64", qrCodeBase64);
+                model.addAttribute("qrCodeUrl", "/student/" + student.getId() + "/qr.png?size=" + QRCodeUtil.STUDENT_CARD_SIZE);
 
             } catch (Exception e) {
                 model.addAttribute("error", "Error: " + e.getMessage());
@@ -271,27 +414,49 @@ public class StudentController {
         Optional<Student> studentOpt = studentService.getStudentById(id);
         if (studentOpt.isPresent()) {
             Student student = studentOpt.get();
-            try {
-                if (student.getQrCodePath() != null) {
-                    qrCodeUtil.deleteQRCodeFile(student.getQrCodePath());
-                }
-
-                String newFilePath = qrCodeUtil.generateStudentQRCode(student);
-                student.setQrCodePath(newFilePath);
-                studentService.saveStudent(student);
+            // The pipeline replaces the old file once the new one is written
+            qrGenerationPipeline.enqueue(student.getId());
 
-                redirectAttributes.addFlashAttribute("success", true);
-                redirectAttributes.addFlashAttribute("message", "QR Code regenerated successfully!");
-
-            } catch (Exception e) {
-                redirectAttributes.addFlashAttribute("error",
-                        "Error regenerating QR code: " + e.getMessage());
-            }
+            redirectAttributes.addFlashAttribute("success", true);
+            redirectAttributes.addFlashAttribute("message", "QR Code regeneration started!");
             return "redirect:/student/view/" + id;
         }
         return "redirect:/student/list";
     }
 
+    // ==== BULK QR CODE DOWNLOAD (ZIP) ====
+    @GetMapping("/bulk-qr/download")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public void downloadBulkQRCodes(@RequestParam(required = false) String course,
+                                    @RequestParam(required = false) String jobId,
+                                    HttpServletResponse response) throws IOException {
+        String targetCourse = (course != null && !course.isBlank()) ? course : null;
+        QRBulkExportService.BulkExportJob job;
+        try {
+            job = qrBulkExportService.createJob(jobId, targetCourse);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.CONFLICT.value(), e.getMessage());
+            return;
+        }
+
+        String archiveName = "student-qr-codes" +
+                (targetCourse != null ? "-" + targetCourse.replaceAll("[^a-zA-Z0-9._-]", "_") : "") + ".zip";
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + archiveName + "\"");
+        response.setHeader("X-Job-Id", job.getId());
+
+        qrBulkExportService.writeZip(job, response.getOutputStream());
+    }
+
+    @GetMapping("/bulk-qr/progress/{jobId}")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getBulkQRProgress(@PathVariable String jobId) {
+        return qrBulkExportService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.getProgress()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
     // ==== REST API ENDPOINTS ====
     @PostMapping("/api/generate")
     @ResponseBody
@@ -300,16 +465,12 @@ public class StudentController {
 
         try {
             Student savedStudent = studentService.saveStudent(student);
-            String filePath = qrCodeUtil.generateStudentQRCode(savedStudent);
-            savedStudent.setQrCodePath(filePath);
-            studentService.saveStudent(savedStudent);
-
-            String qrCodeBase64 = qrCodeUtil.generateQRCodeBase64(savedStudent.toString(), 300, 300);
+            qrGenerationPipeline.enqueue(savedStudent.getId());
 
             response.put("status", "success");
-            response.put("message", "QR Code generated successfully");
-            response.put("filePath", filePath);
-            response.put("qrCodeBase64", qrCodeBase64);
+            response.put("message", "Student saved, QR Code generation queued");
+            response.put("qrCodeUrl", "/student/" + savedStudent.getId() + "/qr.png?size=300");
+            response.put("qrStatusUrl", "/student/api/" + savedStudent.getId() + "/qr-status");
             response.put("student", savedStudent);
 
         } catch (Exception e) {
@@ -320,9 +481,141 @@ public class StudentController {
         return response;
     }
 
+    @PostMapping("/api/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public ResponseEntity<Object> importStudentsAPI(@RequestParam MultipartFile csv,
+                                                    @RequestParam(required = false) MultipartFile photos) {
+        try {
+            return ResponseEntity.ok(runImport(csv, photos));
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/api/students")
     @ResponseBody
-    public List<Student> getAllStudentsAPI() {
-        return studentService.getAllStudents();
+    public Object getAllStudentsAPI(@RequestParam(required = false) String after,
+                                    @RequestParam(required = false) String before,
+                                    @RequestParam(required = false) Integer size) {
+        // Without paging parameters the full list is returned, as before
+        if (after == null && before == null && size == null) {
+            return studentService.getAllStudents();
+        }
+        return studentService.getStudentPage(after, before, size);
+    }
+
+    // Streaming roster export: format=json (array) or ndjson, fields=comma separated subset of
+    // StudentExportService.FIELDS. Gzipped when the client accepts it; the ETag is the roster version.
+    @GetMapping("/api/students/export")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public void exportStudents(@RequestParam(defaultValue = "json") String format,
+                               @RequestParam(required = false) String fields,
+                               HttpServletRequest request,
+                               HttpServletResponse response,
+                               WebRequest webRequest) throws IOException {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if (!ndjson && !"json".equalsIgnoreCase(format)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "format must be json or ndjson");
+            return;
+        }
+        List<String> selected;
+        try {
+            selected = studentExportService.parseFields(fields);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        // Taken before the rows are read, so a change made during the export gets a newer tag
+        String etag = "\"" + rosterVersion.current() + "-" + (ndjson ? "n" : "j")
+                + Integer.toHexString(String.join(",", selected).hashCode()) + (gzip ? "-gz" : "") + "\"";
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (webRequest.checkNotModified(etag)) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            out = new GZIPOutputStream(out, 8192);
+        }
+        int rows = studentExportService.export(out, selected, ndjson);
+        if (out instanceof GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+        out.flush();
+        System.out.println("📤 Exported " + rows + " students (" + format + (gzip ? ", gzip" : "") + ") in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    @GetMapping("/api/{id}/qr-status")
+    @ResponseBody
+    public Map<String, Object> getQRGenerationStatus(@PathVariable String id) {
+        return qrGenerationPipeline.getStatus(id);
+    }
+
+    @GetMapping("/api/qr-pipeline/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public Map<String, Object> getQRPipelineStats() {
+        return qrGenerationPipeline.getStats();
+    }
+
+    @GetMapping("/api/qr-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public Map<String, Object> getQRCacheStats() {
+        return qrCodeCache.getStats();
+    }
+
+    @GetMapping("/api/qr-store/sweep")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public Map<String, Object> getQRStoreSweepStatus() {
+        return qrCodeStoreSweeper.getLastRun();
+    }
+
+    @PostMapping("/api/qr-store/sweep")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public Map<String, Object> sweepQRStore() {
+        return qrCodeStoreSweeper.sweep();
+    }
+
+    @GetMapping("/api/photo-renditions/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public Map<String, Object> getPhotoRenditionStats() {
+        return photoRenditionService.getStats();
+    }
+
+    // Re-render missing or stale photo renditions for all students
+    @PostMapping("/api/photo-renditions/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public Map<String, Object> backfillPhotoRenditions() {
+        photoRenditionService.startBackfill();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Photo rendition backfill started");
+        return response;
+    }
+
+    @GetMapping("/api/search-index/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public Map<String, Object> getSearchIndexStats() {
+        return studentSearchIndex.getStats();
     }
-}
\ No newline at end of file
+}
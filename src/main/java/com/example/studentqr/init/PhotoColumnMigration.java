@@ -0,0 +1,65 @@
+package com.example.studentqr.init;
+
+import com.example.studentqr.service.PhotoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Moves photos from the old students.photo_base64 column into student_photos, then drops the column.
+// Does nothing on databases created after the split. If any photo cannot be decoded the column is
+// kept (with the migrated rows cleared) so those photos are not lost and the next start retries them.
+@Component
+@Order(0)
+public class PhotoColumnMigration implements CommandLineRunner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PhotoService photoService;
+
+    @Override
+    public void run(String... args) {
+        Integer legacyColumns = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS " +
+                        "WHERE UPPER(TABLE_NAME) = 'STUDENTS' AND UPPER(COLUMN_NAME) = 'PHOTO_BASE64'",
+                Integer.class);
+        if (legacyColumns == null || legacyColumns == 0) {
+            return;
+        }
+
+        System.out.println("📷 Migrating student photos out of students.photo_base64...");
+        List<String> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM students WHERE photo_base64 IS NOT NULL", String.class);
+
+        int migrated = 0;
+        List<String> skipped = new ArrayList<>();
+        for (String id : ids) {
+            // One row at a time so only a single photo is in memory
+            String photoBase64 = jdbcTemplate.queryForObject(
+                    "SELECT photo_base64 FROM students WHERE id = ?", String.class, id);
+            try {
+                photoService.savePhotoDataUrl(id, photoBase64);
+                // Cleared so a rerun cannot overwrite a photo uploaded since
+                jdbcTemplate.update("UPDATE students SET photo_base64 = NULL WHERE id = ?", id);
+                migrated++;
+            } catch (IllegalArgumentException e) {
+                System.err.println("Skipping unreadable photo for student " + id + ": " + e.getMessage());
+                skipped.add(id);
+            }
+        }
+
+        if (!skipped.isEmpty()) {
+            System.err.println("⚠️ Photo migration incomplete: " + migrated + " migrated, " + skipped.size()
+                    + " unreadable. Keeping students.photo_base64 for students " + skipped);
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE students DROP COLUMN photo_base64");
+        System.out.println("✅ Photo migration complete: " + migrated + " migrated");
+    }
+}
@@ -7,7 +7,8 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "students")
+@Table(name = "students",
+        indexes = @Index(name = "idx_students_course", columnList = "course"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,12 +29,17 @@ public class Student {
     @Column(name = "roll_number", nullable = false, unique = true)
     private String rollNumber;
 
-    @Column(name = "photo_base64", length = 1000000) // For large base64 strings
-    private String photoBase64;
+    // Photo bytes live in student_photos (see PhotoService); only the flag is kept here
+    @Column(name = "has_photo", columnDefinition = "boolean default false")
+    private boolean photoAvailable;
+
+    @Column(name = "photo_updated_at")
+    private LocalDateTime photoUpdatedAt;
 
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Relative key in the QR store (older rows may still hold an absolute path)
     @Column(name = "qr_code_path")
     private String qrCodePath;
 
@@ -53,6 +59,6 @@ public class Student {
     }
 
     public boolean hasPhoto() {
-        return photoBase64 != null && !photoBase64.isEmpty() && photoBase64.length() > 100;
+        return photoAvailable;
     }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.example.studentqr.model;
+
+import java.util.List;
+
+// One keyset page of the student directory; cursors are null when there is no page in that direction
+public record StudentPage(List<StudentSummary> students, String prevCursor, String nextCursor, int size) {
+}
@@ -0,0 +1,33 @@
+package com.example.studentqr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import java.time.LocalDateTime;
+
+// Raw photo bytes, kept out of the students table so student queries never load them
+@Entity
+@Table(name = "student_photos")
+@Data
+@NoArgsConstructor
+public class StudentPhoto {
+
+    @Id
+    @Column(name = "student_id")
+    private String studentId;
+
+    @Lob
+    @Column(name = "data", nullable = false)
+    @ToString.Exclude
+    private byte[] data;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private int size;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,52 @@
+package com.example.studentqr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import java.time.LocalDateTime;
+
+// A pre-scaled JPEG of a student photo; width 0 is the normalized original
+@Entity
+@Table(name = "student_photo_renditions",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "rendition_width"}))
+@Data
+@NoArgsConstructor
+public class StudentPhotoRendition {
+
+    public static final int ORIGINAL = 0;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "student_id", nullable = false)
+    private String studentId;
+
+    @Column(name = "rendition_width", nullable = false)
+    private int width;
+
+    @Lob
+    @Column(name = "data", nullable = false)
+    @ToString.Exclude
+    private byte[] data;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private int size;
+
+    // updatedAt of the StudentPhoto this was rendered from; a mismatch means it is stale
+    @Column(name = "source_updated_at", nullable = false)
+    private LocalDateTime sourceUpdatedAt;
+
+    public StudentPhotoRendition(String studentId, int width, byte[] data, LocalDateTime sourceUpdatedAt) {
+        this.studentId = studentId;
+        this.width = width;
+        this.data = data;
+        this.contentType = "image/jpeg";
+        this.size = data.length;
+        this.sourceUpdatedAt = sourceUpdatedAt;
+    }
+}
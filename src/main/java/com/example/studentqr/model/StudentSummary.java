@@ -0,0 +1,29 @@
+package com.example.studentqr.model;
+
+import java.time.LocalDateTime;
+
+// List-page view of a student: only the columns the directory shows
+public interface StudentSummary {
+
+    String getId();
+
+    String getName();
+
+    String getEmail();
+
+    String getCourse();
+
+    String getRollNumber();
+
+    boolean isPhotoAvailable();
+
+    LocalDateTime getCreatedAt();
+
+    default boolean hasPhoto() {
+        return isPhotoAvailable();
+    }
+
+    default String getFormattedDate() {
+        return getCreatedAt() != null ? getCreatedAt().toString().replace("T", " ") : "";
+    }
+}
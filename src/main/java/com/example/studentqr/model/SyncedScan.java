@@ -0,0 +1,30 @@
+package com.example.studentqr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Idempotency key of an offline kiosk scan that has been synced, so a batch re-sent after a
+// lost response is not applied twice
+@Entity
+@Table(name = "synced_scans",
+        indexes = @Index(name = "idx_synced_scans_synced_at", columnList = "synced_at"))
+@Data
+@NoArgsConstructor
+public class SyncedScan {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "device_id", length = 100)
+    private String deviceId;
+
+    @Column(nullable = false)
+    private String outcome; // APPLIED, SUPERSEDED
+
+    @Column(name = "synced_at", nullable = false)
+    private LocalDateTime syncedAt;
+}
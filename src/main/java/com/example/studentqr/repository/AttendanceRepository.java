@@ -12,7 +12,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
+public interface AttendanceRepository extends JpaRepository<Attendance, Long>, AttendanceRepositoryCustom {
 
     Optional<Attendance> findByStudentAndAttendanceDate(Student student, LocalDate date);
 
@@ -20,17 +20,20 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
 
     List<Attendance> findByAttendanceDate(LocalDate date);
 
+    // (studentId, status, markedAt) for one day, without loading the students
+    @Query("SELECT a.student.id, a.status, a.markedAt FROM Attendance a WHERE a.attendanceDate = :date")
+    List<Object[]> findMarksByDate(@Param("date") LocalDate date);
+
     @Query("SELECT a FROM Attendance a WHERE a.student.rollNumber = :rollNumber AND a.attendanceDate = :date")
     Optional<Attendance> findByRollNumberAndDate(@Param("rollNumber") String rollNumber,
                                                  @Param("date") LocalDate date);
 
-    @Query("SELECT COUNT(a) FROM Attendance a WHERE a.student.course = :course AND a.attendanceDate = :date AND a.status = 'PRESENT'")
-    Long countPresentByCourseAndDate(@Param("course") String course,
-                                     @Param("date") LocalDate date);
-
-    @Query("SELECT COUNT(a) FROM Attendance a WHERE a.student.course = :course AND a.attendanceDate = :date")
-    Long countTotalByCourseAndDate(@Param("course") String course,
-                                   @Param("date") LocalDate date);
+    // (status, count) for one course on one day; callers take the course's size from CourseDirectory
+    @Query("SELECT a.status, COUNT(a) FROM Attendance a " +
+            "WHERE a.student.course = :course AND a.attendanceDate = :date " +
+            "GROUP BY a.status")
+    List<Object[]> countByStatusForCourseAndDate(@Param("course") String course,
+                                                 @Param("date") LocalDate date);
 
     List<Attendance> findByAttendanceDateBetween(LocalDate startDate, LocalDate endDate);
 
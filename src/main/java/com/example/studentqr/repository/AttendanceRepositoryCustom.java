@@ -0,0 +1,27 @@
+package com.example.studentqr.repository;
+
+import com.example.studentqr.model.Attendance;
+
+import java.util.List;
+
+// Upserts keyed on the (student_id, attendance_date) unique constraint with H2's MERGE ... KEY, so
+// concurrent marks of the same student cannot both insert, and an older mark never replaces a newer one
+public interface AttendanceRepositoryCustom {
+
+    enum UpsertOutcome {
+        INSERTED,
+        UPDATED,
+        // The stored mark (or another mark in the same batch) is newer; the row was left alone
+        SKIPPED_OLDER
+    }
+
+    // previousStatus is the status the row had before an UPDATED mark, otherwise null
+    record UpsertResult(UpsertOutcome outcome, String previousStatus) {
+    }
+
+    UpsertResult upsert(Attendance attendance);
+
+    // One MERGE per 500 rows; the mark with the latest markedAt for a student and date wins.
+    // One result per mark, in the order given.
+    List<UpsertResult> upsertAll(List<Attendance> attendances);
+}
@@ -0,0 +1,140 @@
+package com.example.studentqr.repository;
+
+import com.example.studentqr.model.Attendance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// H2's MERGE ... KEY locks the key while it updates or inserts, so it does not race like a read
+// followed by a save. The rows it replaced come back through OLD TABLE in the same statement; one
+// that was newer than the incoming mark is written back before the transaction commits, while the
+// MERGE still holds its row lock, so no other transaction ever sees the older mark.
+public class AttendanceRepositoryImpl implements AttendanceRepositoryCustom {
+
+    private static final String COLUMNS = "student_id, attendance_date, status, remarks, marked_by, marked_at, qr_scanned";
+
+    // Rows per MERGE statement
+    private static final int MAX_ROWS = 500;
+
+    private static final String RESTORE_SQL = "UPDATE attendance SET status = ?, remarks = ?, marked_by = ?, " +
+            "marked_at = ?, qr_scanned = ? WHERE student_id = ? AND attendance_date = ?";
+
+    private record StoredMark(String studentId, LocalDate date, String status, String remarks, String markedBy,
+                              LocalDateTime markedAt, boolean qrScanned) {
+
+        boolean isNewerThan(Attendance attendance) {
+            return markedAt != null && attendance.getMarkedAt() != null && markedAt.isAfter(attendance.getMarkedAt());
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public UpsertResult upsert(Attendance attendance) {
+        return upsertAll(List.of(attendance)).get(0);
+    }
+
+    @Override
+    public List<UpsertResult> upsertAll(List<Attendance> attendances) {
+        Map<String, Attendance> latest = new LinkedHashMap<>();
+        for (Attendance attendance : attendances) {
+            latest.merge(key(attendance), attendance, (a, b) ->
+                    a.getMarkedAt() != null && b.getMarkedAt() != null && a.getMarkedAt().isAfter(b.getMarkedAt()) ? a : b);
+        }
+        Map<String, StoredMark> previous = latest.isEmpty() ? Map.of() : merge(latest.values());
+
+        List<UpsertResult> results = new ArrayList<>(attendances.size());
+        for (Attendance attendance : attendances) {
+            StoredMark stored = previous.get(key(attendance));
+            if (latest.get(key(attendance)) != attendance || (stored != null && stored.isNewerThan(attendance))) {
+                results.add(new UpsertResult(UpsertOutcome.SKIPPED_OLDER, null));
+            } else if (stored == null) {
+                results.add(new UpsertResult(UpsertOutcome.INSERTED, null));
+            } else {
+                results.add(new UpsertResult(UpsertOutcome.UPDATED, stored.status()));
+            }
+        }
+        return results;
+    }
+
+    // At most one mark per key. Rows go in key order so that two batches lock shared rows in the same order.
+    private Map<String, StoredMark> merge(Collection<Attendance> marks) {
+        List<Attendance> sorted = new ArrayList<>(marks);
+        sorted.sort(Comparator.comparing((Attendance a) -> a.getStudent().getId()).thenComparing(Attendance::getAttendanceDate));
+
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Map<String, StoredMark> previous = new HashMap<>();
+            for (int from = 0; from < sorted.size(); from += MAX_ROWS) {
+                List<Attendance> chunk = sorted.subList(from, Math.min(from + MAX_ROWS, sorted.size()));
+                for (StoredMark stored : mergeReturningPrevious(chunk)) {
+                    previous.put(stored.studentId() + "|" + stored.date(), stored);
+                }
+            }
+
+            List<Object[]> restores = new ArrayList<>();
+            for (Attendance attendance : sorted) {
+                StoredMark stored = previous.get(key(attendance));
+                if (stored != null && stored.isNewerThan(attendance)) {
+                    restores.add(new Object[]{stored.status(), stored.remarks(), stored.markedBy(),
+                            Timestamp.valueOf(stored.markedAt()), stored.qrScanned(),
+                            stored.studentId(), Date.valueOf(stored.date())});
+                }
+            }
+            if (!restores.isEmpty()) {
+                jdbcTemplate.batchUpdate(RESTORE_SQL, restores);
+            }
+            return previous;
+        });
+    }
+
+    // The rows as they were before the merge; none for the marks it inserted
+    private List<StoredMark> mergeReturningPrevious(List<Attendance> chunk) {
+        String sql = "SELECT " + COLUMNS + " FROM OLD TABLE (MERGE INTO attendance (" + COLUMNS + ") " +
+                "KEY (student_id, attendance_date) VALUES " +
+                String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, ?, ?, ?)")) + ")";
+        List<Object> args = new ArrayList<>(chunk.size() * 7);
+        for (Attendance attendance : chunk) {
+            Collections.addAll(args, toArgs(attendance));
+        }
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Timestamp markedAt = rs.getTimestamp("marked_at");
+            return new StoredMark(rs.getString("student_id"), rs.getDate("attendance_date").toLocalDate(),
+                    rs.getString("status"), rs.getString("remarks"), rs.getString("marked_by"),
+                    markedAt != null ? markedAt.toLocalDateTime() : null, rs.getBoolean("qr_scanned"));
+        }, args.toArray());
+    }
+
+    private static String key(Attendance attendance) {
+        return attendance.getStudent().getId() + "|" + attendance.getAttendanceDate();
+    }
+
+    private static Object[] toArgs(Attendance attendance) {
+        return new Object[]{
+                attendance.getStudent().getId(),
+                Date.valueOf(attendance.getAttendanceDate()),
+                attendance.getStatus(),
+                attendance.getRemarks(),
+                attendance.getMarkedBy(),
+                attendance.getMarkedAt() != null ? Timestamp.valueOf(attendance.getMarkedAt()) : null,
+                attendance.isQrScanned()
+        };
+    }
+}
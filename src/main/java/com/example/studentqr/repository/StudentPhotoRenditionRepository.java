@@ -0,0 +1,29 @@
+package com.example.studentqr.repository;
+
+import com.example.studentqr.model.StudentPhotoRendition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StudentPhotoRenditionRepository extends JpaRepository<StudentPhotoRendition, Long> {
+
+    Optional<StudentPhotoRendition> findByStudentIdAndWidth(String studentId, int width);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StudentPhotoRendition r WHERE r.studentId = :studentId")
+    int deleteByStudentId(@Param("studentId") String studentId);
+
+    // Students with a photo whose renditions are missing or older than the photo
+    @Query("SELECT s.id FROM Student s WHERE s.photoAvailable = true AND NOT EXISTS (" +
+            "SELECT r.id FROM StudentPhotoRendition r WHERE r.studentId = s.id " +
+            "AND r.width = 0 AND r.sourceUpdatedAt = s.photoUpdatedAt)")
+    List<String> findStudentIdsNeedingRenditions();
+}
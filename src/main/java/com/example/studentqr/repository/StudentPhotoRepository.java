@@ -0,0 +1,24 @@
+package com.example.studentqr.repository;
+
+import com.example.studentqr.model.StudentPhoto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface StudentPhotoRepository extends JpaRepository<StudentPhoto, String> {
+
+    // Inserts or replaces a student's photo without reading the old bytes first
+    @Modifying
+    @Query(value = "MERGE INTO student_photos (student_id, data, content_type, size_bytes, updated_at) " +
+            "KEY (student_id) VALUES (:studentId, :data, :contentType, :size, :updatedAt)", nativeQuery = true)
+    int upsert(@Param("studentId") String studentId,
+               @Param("data") byte[] data,
+               @Param("contentType") String contentType,
+               @Param("size") int size,
+               @Param("updatedAt") LocalDateTime updatedAt);
+}
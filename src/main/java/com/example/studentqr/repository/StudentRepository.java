@@ -1,10 +1,22 @@
 package com.example.studentqr.repository;
 
 import com.example.studentqr.model.Student;
+import com.example.studentqr.model.StudentSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, String> {
@@ -12,4 +24,60 @@ public interface StudentRepository extends JpaRepository<Student, String> {
     Optional<Student> findByRollNumber(String rollNumber);
 
     boolean existsByRollNumber(String rollNumber);
+
+    List<Student> findByCourse(String course);
+
+    // Keyset pages for the directory. Roll numbers are unique, so they are a complete cursor on their own;
+    // names are not, so the id breaks ties.
+    String SUMMARY_COLUMNS = "SELECT s.id AS id, s.name AS name, s.email AS email, s.course AS course, " +
+            "s.rollNumber AS rollNumber, s.photoAvailable AS photoAvailable, s.createdAt AS createdAt FROM Student s ";
+
+    @Query(SUMMARY_COLUMNS + "WHERE s.rollNumber > :rollNumber ORDER BY s.rollNumber ASC")
+    List<StudentSummary> findSummariesAfterRollNumber(@Param("rollNumber") String rollNumber, Limit limit);
+
+    @Query(SUMMARY_COLUMNS + "WHERE s.rollNumber < :rollNumber ORDER BY s.rollNumber DESC")
+    List<StudentSummary> findSummariesBeforeRollNumber(@Param("rollNumber") String rollNumber, Limit limit);
+
+    @Query(SUMMARY_COLUMNS + "WHERE s.name > :name OR (s.name = :name AND s.id > :id) ORDER BY s.name ASC, s.id ASC")
+    List<StudentSummary> findSummariesAfterName(@Param("name") String name, @Param("id") String id, Limit limit);
+
+    @Query(SUMMARY_COLUMNS + "WHERE s.name < :name OR (s.name = :name AND s.id < :id) ORDER BY s.name DESC, s.id DESC")
+    List<StudentSummary> findSummariesBeforeName(@Param("name") String name, @Param("id") String id, Limit limit);
+
+    @Query(SUMMARY_COLUMNS + "WHERE s.id = :identifier OR s.rollNumber = :identifier")
+    List<StudentSummary> findSummariesByIdOrRollNumber(@Param("identifier") String identifier);
+
+    // Whole roster as summaries, for building the in-memory search index
+    @Query(SUMMARY_COLUMNS + "ORDER BY s.rollNumber")
+    List<StudentSummary> findAllSummaries();
+
+    // (id, course) for every student, for building the course directory
+    @Query("SELECT s.id, s.course FROM Student s")
+    List<Object[]> findAllCourseAssignments();
+
+    // Cursor over the whole roster for streaming exports; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM Student s ORDER BY s.rollNumber")
+    Stream<Student> streamAllOrderByRollNumber();
+
+    @Query("SELECT s.rollNumber FROM Student s")
+    List<String> findAllRollNumbers();
+
+    @Query("SELECT s.qrCodePath FROM Student s WHERE s.qrCodePath IS NOT NULL")
+    List<String> findAllQrCodePaths();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Student s SET s.qrCodePath = :path WHERE s.id = :id")
+    int updateQrCodePath(@Param("id") String id, @Param("path") String path);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Student s SET s.photoAvailable = :available, s.photoUpdatedAt = :updatedAt WHERE s.id = :id")
+    int updatePhotoState(@Param("id") String id,
+                         @Param("available") boolean available,
+                         @Param("updatedAt") LocalDateTime updatedAt);
 }
\ No newline at end of file
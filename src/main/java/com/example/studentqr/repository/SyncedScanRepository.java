@@ -0,0 +1,25 @@
+package com.example.studentqr.repository;
+
+import com.example.studentqr.model.SyncedScan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SyncedScanRepository extends JpaRepository<SyncedScan, String> {
+
+    @Query("SELECT s.idempotencyKey FROM SyncedScan s WHERE s.idempotencyKey IN :keys")
+    List<String> findExistingKeys(@Param("keys") Collection<String> keys);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SyncedScan s WHERE s.syncedAt < :cutoff")
+    int deleteSyncedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -4,21 +4,29 @@ import com.example.studentqr.model.Attendance;
 import com.example.studentqr.model.Holiday;
 import com.example.studentqr.model.Student;
 import com.example.studentqr.repository.AttendanceRepository;
+import com.example.studentqr.repository.AttendanceRepositoryCustom.UpsertOutcome;
+import com.example.studentqr.repository.AttendanceRepositoryCustom.UpsertResult;
+import com.example.studentqr.util.QRPayloadCodec;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class AttendanceService {
 
+    // Statuses a kiosk may set, online or synced from its offline queue
+    public static final Set<String> SCAN_STATUSES = Set.of("PRESENT", "ABSENT", "LATE", "EXCUSED");
+
     @Autowired
     private AttendanceRepository attendanceRepository;
 
@@ -28,19 +36,42 @@ public class AttendanceService {
     @Autowired
     private HolidayService holidayService;
 
-    public Attendance markAttendance(String studentIdOrRollNumber, String status, String remarks) {
-        LocalDate today = LocalDate.now();
+    @Autowired
+    private QRPayloadCodec qrPayloadCodec;
 
-        // Check if today is a no-attendance day
-        if (holidayService.isNoAttendanceDay(today)) {
-            List<Holiday> holidays = holidayService.getNoAttendanceHolidaysForDate(today);
-            String holidayNames = holidays.stream()
-                    .map(Holiday::getName)
-                    .collect(Collectors.joining(", "));
+    @Autowired
+    private StudentIdentifierResolver studentIdentifierResolver;
 
-            throw new RuntimeException("Cannot mark attendance on " + today +
-                    ". It's a holiday: " + holidayNames);
+    @Autowired
+    private CourseDirectory courseDirectory;
+
+    @Autowired
+    private AttendanceWriteBuffer attendanceWriteBuffer;
+
+    @Autowired
+    private MarkedStudentBitmap markedStudentBitmap;
+
+    // Outcome of a kiosk scan; previousStatus is null when this was the student's first mark today,
+    // or unknown when the mark was queued for write-behind. A duplicate is a re-scan that changed
+    // nothing; markedAt is then the time of the original mark.
+    public record ScanResult(StudentIdentifierResolver.StudentRef student, String status,
+                             String previousStatus, LocalDateTime markedAt, boolean queued,
+                             boolean duplicate) {
+    }
+
+    // The table already holds a later mark for the student today (e.g. a synced kiosk scan), so this
+    // one was not written
+    public static class LaterMarkExistsException extends RuntimeException {
+        public LaterMarkExistsException(String message) {
+            super(message);
         }
+    }
+
+    // Returns the mark as written, not re-read from the table: its id is null and its student may be
+    // an uninitialised reference (only getId() is safe outside a transaction). No caller reads more.
+    public Attendance markAttendance(String studentIdOrRollNumber, String status, String remarks) {
+        LocalDate today = LocalDate.now();
+        checkAttendanceDay(today);
 
         Optional<Student> studentOpt = findStudent(studentIdOrRollNumber);
 
@@ -48,27 +79,98 @@ public class AttendanceService {
             throw new RuntimeException("Student not found: " + studentIdOrRollNumber);
         }
 
+        // A reference is enough to look up and link the attendance row
         Student student = studentOpt.get();
 
-        // Check if attendance already marked for today
-        Optional<Attendance> existing = attendanceRepository.findByStudentAndAttendanceDate(student, today);
+        Attendance attendance = newMark(student, status, remarks);
 
-        Attendance attendance;
-        if (existing.isPresent()) {
-            attendance = existing.get();
-            attendance.setStatus(status);
-            attendance.setRemarks(remarks);
-            attendance.setMarkedAt(LocalDateTime.now());
+        // Same status again without new remarks: the row already says this, nothing to write
+        if (remarks == null || remarks.isBlank()) {
+            Optional<LocalDateTime> markedAt = markedStudentBitmap.recentMark(student.getId(), today, status);
+            if (markedAt.isPresent()) {
+                attendance.setMarkedAt(markedAt.get());
+                return attendance;
+            }
+        }
+
+        // Write-behind: validated against in-memory state only, written by the next flush
+        if (attendanceWriteBuffer.isEnabled()) {
+            attendanceWriteBuffer.submit(toPendingMark(attendance));
         } else {
-            attendance = new Attendance(student, status);
-            attendance.setRemarks(remarks);
+            // Inserts or replaces today's mark in one statement; the returned row is not re-read
+            if (attendanceRepository.upsert(attendance).outcome() == UpsertOutcome.SKIPPED_OLDER) {
+                throw new LaterMarkExistsException("Not marked: " + studentIdOrRollNumber + " already has a later mark today");
+            }
         }
+        markedStudentBitmap.record(student.getId(), today, status, attendance.getMarkedAt());
+        return attendance;
+    }
 
-        attendance.setMarkedBy(getCurrentUsername());
+    // The JSON scan path: everything the kiosk needs to update its page comes back from the
+    // resolver and the upsert, so the mark is a single statement, and a student holding the card
+    // under the camera for a few more frames costs no statement at all
+    public ScanResult scan(String qrData, String status, String remarks) {
+        LocalDate today = LocalDate.now();
+        checkAttendanceDay(today);
+
+        String identifier = extractStudentIdentifier(qrData);
+        StudentIdentifierResolver.StudentRef ref = studentIdentifierResolver.resolve(identifier)
+                .orElseThrow(() -> new RuntimeException("Student not found: " + identifier));
+
+        if (remarks == null || remarks.isBlank()) {
+            Optional<LocalDateTime> markedAt = markedStudentBitmap.recentMark(ref.id(), today, status);
+            if (markedAt.isPresent()) {
+                return new ScanResult(ref, status, status, markedAt.get(), false, true);
+            }
+        }
+
+        Student student = studentService.getStudentReference(ref.id());
+        Attendance attendance = newMark(student, status, remarks);
+        attendance.setQrScanned(true);
+
+        if (attendanceWriteBuffer.isEnabled()) {
+            attendanceWriteBuffer.submit(toPendingMark(attendance));
+            markedStudentBitmap.record(ref.id(), today, status, attendance.getMarkedAt());
+            return new ScanResult(ref, status, null, attendance.getMarkedAt(), true, false);
+        }
 
-        return attendanceRepository.save(attendance);
+        UpsertResult written = attendanceRepository.upsert(attendance);
+        if (written.outcome() == UpsertOutcome.SKIPPED_OLDER) {
+            throw new LaterMarkExistsException("Not marked: " + ref.name() + " (" + ref.rollNumber()
+                    + ") already has a later mark today");
+        }
+        markedStudentBitmap.record(ref.id(), today, status, attendance.getMarkedAt());
+        return new ScanResult(ref, status, written.previousStatus(), attendance.getMarkedAt(), false, false);
+    }
+
+    private void checkAttendanceDay(LocalDate date) {
+        // Check if today is a no-attendance day
+        if (holidayService.isNoAttendanceDay(date)) {
+            List<Holiday> holidays = holidayService.getNoAttendanceHolidaysForDate(date);
+            String holidayNames = holidays.stream()
+                    .map(Holiday::getName)
+                    .collect(Collectors.joining(", "));
+
+            throw new RuntimeException("Cannot mark attendance on " + date +
+                    ". It's a holiday: " + holidayNames);
+        }
+    }
+
+    private static AttendanceWriteBuffer.PendingMark toPendingMark(Attendance attendance) {
+        return new AttendanceWriteBuffer.PendingMark(attendance.getStudent().getId(), attendance.getAttendanceDate(),
+                attendance.getStatus(), attendance.getRemarks(), attendance.getMarkedBy(), attendance.getMarkedAt(),
+                attendance.isQrScanned());
+    }
+
+    // Today's mark as it should end up in the table, whether or not the student was marked before
+    private Attendance newMark(Student student, String status, String remarks) {
+        Attendance attendance = new Attendance(student, status);
+        attendance.setRemarks(remarks);
+        attendance.setMarkedBy(getCurrentUsername());
+        return attendance;
     }
 
+    // Same return contract as markAttendance
     public Attendance markAttendanceByQR(String qrData, String status, String remarks) {
         // Extract student ID or roll number from QR data
         String studentIdentifier = extractStudentIdentifier(qrData);
@@ -117,20 +219,64 @@ public class AttendanceService {
     public Map<String, Object> getCourseWiseSummary(String course, LocalDate date) {
         Map<String, Object> summary = new HashMap<>();
 
-        Long presentCount = attendanceRepository.countPresentByCourseAndDate(course, date);
-        Long totalCount = attendanceRepository.countTotalByCourseAndDate(course, date);
+        long totalStudents = courseDirectory.getStudentCount(course);
+        long presentCount = 0;
+        long absentCount = 0;
+        long markedCount = 0;
+
+        // A course nobody is enrolled in has no attendance to count
+        if (totalStudents > 0) {
+            for (Object[] row : attendanceRepository.countByStatusForCourseAndDate(course, date)) {
+                String status = (String) row[0];
+                long count = ((Number) row[1]).longValue();
+                markedCount += count;
+                if ("PRESENT".equalsIgnoreCase(status)) {
+                    presentCount += count;
+                } else if ("ABSENT".equalsIgnoreCase(status)) {
+                    absentCount += count;
+                }
+            }
+        }
 
         summary.put("course", course);
         summary.put("date", date);
-        summary.put("presentCount", presentCount != null ? presentCount : 0);
-        summary.put("totalCount", totalCount != null ? totalCount : 0);
+        summary.put("presentCount", presentCount);
+        summary.put("absentCount", absentCount);
+        summary.put("totalStudents", totalStudents);
+        summary.put("totalCount", markedCount);
+        summary.put("markedCount", markedCount);
+        summary.put("unmarkedCount", Math.max(0, totalStudents - markedCount));
         summary.put("attendancePercentage",
-                totalCount != null && totalCount > 0 ?
-                        (presentCount != null ? presentCount * 100.0 / totalCount : 0.0) : 0.0);
+                totalStudents > 0 ? (presentCount * 100.0 / totalStudents) : 0.0);
 
         return summary;
     }
 
+    // One row per course in the directory, including courses with nothing marked yet
+    public List<Map<String, Object>> getCourseBreakdown(LocalDate date) {
+        Map<String, Object[]> statsByCourse = new HashMap<>();
+        for (Object[] row : attendanceRepository.getCourseWiseStatsByDate(date)) {
+            statsByCourse.put((String) row[0], row);
+        }
+
+        List<Map<String, Object>> breakdown = new ArrayList<>();
+        courseDirectory.getStudentCounts().forEach((course, totalStudents) -> {
+            Object[] stats = statsByCourse.get(course);
+            long markedCount = stats != null ? ((Number) stats[1]).longValue() : 0;
+            long presentCount = stats != null && stats[2] != null ? ((Number) stats[2]).longValue() : 0;
+
+            Map<String, Object> row = new HashMap<>();
+            row.put("course", course);
+            row.put("totalStudents", totalStudents);
+            row.put("presentCount", presentCount);
+            row.put("markedCount", markedCount);
+            row.put("unmarkedCount", Math.max(0, totalStudents - markedCount));
+            row.put("attendancePercentage", presentCount * 100.0 / totalStudents);
+            breakdown.add(row);
+        });
+        return breakdown;
+    }
+
     public Map<String, Object> getDateAttendanceStatus(LocalDate date) {
         Map<String, Object> status = new HashMap<>();
 
@@ -164,7 +310,6 @@ public class AttendanceService {
         Map<String, Object> stats = new HashMap<>();
 
         List<Attendance> attendances = getAttendanceByDateRange(startDate, endDate);
-        List<Student> allStudents = studentService.getAllStudents();
 
         long totalAttendanceRecords = attendances.size();
         long totalPresent = attendances.stream()
@@ -182,38 +327,45 @@ public class AttendanceService {
         stats.put("totalPresent", totalPresent);
         stats.put("totalAbsent", totalAttendanceRecords - totalPresent);
         stats.put("uniqueStudents", uniqueStudents);
-        stats.put("totalStudents", allStudents.size());
+        stats.put("totalStudents", studentService.getStudentCount());
         stats.put("attendanceRate", totalAttendanceRecords > 0 ?
                 (totalPresent * 100.0 / totalAttendanceRecords) : 0.0);
 
         return stats;
     }
 
+    // Id or roll number, resolved from the in-memory resolver; the result is a lazy reference
     private Optional<Student> findStudent(String identifier) {
-        // Try by ID first
-        Optional<Student> byId = studentService.getStudentById(identifier);
-        if (byId.isPresent()) {
-            return byId;
-        }
-
-        // Try by roll number
-        return studentService.getStudentByRollNumber(identifier);
+        return studentIdentifierResolver.resolve(identifier)
+                .map(ref -> studentService.getStudentReference(ref.id()));
     }
 
-    private String extractStudentIdentifier(String qrData) {
-        // Simple extraction - in real app, parse QR data properly
+    public String extractStudentIdentifier(String qrData) {
+        // Compact signed payload (SQ1:...) printed since the switch to alphanumeric-mode codes
+        String compactId = qrPayloadCodec.parse(qrData);
+        if (compactId != null) {
+            return compactId;
+        }
+
+        // Legacy multi-line payloads: scan line starts without splitting the whole block
         if (qrData.contains("ID:")) {
-            String[] lines = qrData.split("\n");
-            for (String line : lines) {
-                if (line.startsWith("ID:")) {
-                    return line.substring(3).trim();
+            int lineStart = 0;
+            int length = qrData.length();
+            while (lineStart < length) {
+                int lineEnd = qrData.indexOf('\n', lineStart);
+                if (lineEnd < 0) {
+                    lineEnd = length;
+                }
+                if (qrData.startsWith("ID:", lineStart)) {
+                    return qrData.substring(lineStart + 3, lineEnd).trim();
                 }
-                if (line.startsWith("Roll:")) {
-                    return line.substring(5).trim();
+                if (qrData.startsWith("Roll:", lineStart)) {
+                    return qrData.substring(lineStart + 5, lineEnd).trim();
                 }
+                lineStart = lineEnd + 1;
             }
         }
-        return qrData;
+        return qrData.trim();
     }
 
     private String getCurrentUsername() {
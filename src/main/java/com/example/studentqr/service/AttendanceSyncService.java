@@ -0,0 +1,271 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Attendance;
+import com.example.studentqr.repository.AttendanceRepository;
+import com.example.studentqr.repository.AttendanceRepositoryCustom.UpsertOutcome;
+import com.example.studentqr.repository.AttendanceRepositoryCustom.UpsertResult;
+import com.example.studentqr.repository.SyncedScanRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Applies scans a kiosk queued while it was offline. Every scan carries an idempotency key and
+// the time it was taken; a batch is applied in one transaction (one read of the keys, one upsert,
+// one batched key insert), and re-sending it is harmless. The upsert only replaces an older mark and
+// reports the scans it skipped, so a write-behind batch flushed after this one cannot undo a newer
+// synced scan either.
+@Service
+public class AttendanceSyncService {
+
+    public static final String APPLIED = "APPLIED";
+    // Not written because a later scan of the same student on the same day is already stored
+    public static final String SUPERSEDED = "SUPERSEDED";
+    // Key seen before; the original outcome stands
+    public static final String DUPLICATE = "DUPLICATE";
+    // Invalid or not allowed; not recorded, so a corrected scan may reuse the key
+    public static final String REJECTED = "REJECTED";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    // MERGE so that two kiosks re-sending the same keys at once do not trip the primary key
+    private static final String INSERT_KEY = "MERGE INTO synced_scans " +
+            "(idempotency_key, device_id, outcome, synced_at) KEY (idempotency_key) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private SyncedScanRepository syncedScanRepository;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private StudentIdentifierResolver studentIdentifierResolver;
+
+    @Autowired
+    private HolidayService holidayService;
+
+    @Autowired
+    private MarkedStudentBitmap markedStudentBitmap;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${attendance.sync.max-batch-size:500}")
+    private int maxBatchSize;
+
+    // Scans older than this are refused; the day's register is considered closed
+    @Value("${attendance.sync.max-age-days:7}")
+    private int maxAgeDays;
+
+    // How far ahead of the server clock a kiosk's scan time may be; a later one is refused, since it
+    // would outrank every live mark of that student until then
+    @Value("${attendance.sync.max-clock-skew-seconds:120}")
+    private long maxClockSkewSeconds;
+
+    @Value("${attendance.sync.key-retention-days:30}")
+    private int keyRetentionDays;
+
+    // qrData is whatever the kiosk captured: a QR payload, a student id or a roll number
+    public record OfflineScan(String key, String qrData, String status, String remarks, LocalDateTime scannedAt) {
+    }
+
+    // Request body of /attendance/api/sync
+    public record SyncBatch(String deviceId, List<OfflineScan> scans) {
+    }
+
+    public record SyncResult(String key, String outcome, String message, StudentIdentifierResolver.StudentRef student,
+                             String status, LocalDate date, LocalDateTime markedAt) {
+
+        static SyncResult of(String key, String outcome, String message) {
+            return new SyncResult(key, outcome, message, null, null, null, null);
+        }
+    }
+
+    private record Candidate(int position, OfflineScan scan, StudentIdentifierResolver.StudentRef student, LocalDate date) {
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    // One result per scan, in the order sent
+    public List<SyncResult> sync(String deviceId, List<OfflineScan> scans) {
+        if (scans.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " scans per batch, got " + scans.size());
+        }
+        String markedBy = SecurityContextHolder.getContext().getAuthentication().getName();
+        LocalDate today = LocalDate.now();
+        SyncResult[] results = new SyncResult[scans.size()];
+
+        // Validation and resolution need no transaction; the resolver and holiday checks are in memory
+        Map<String, Candidate> byKey = new HashMap<>();
+        for (int i = 0; i < scans.size(); i++) {
+            OfflineScan scan = normalise(scans.get(i));
+            if (scan == null) {
+                results[i] = SyncResult.of(null, REJECTED, "Empty scan");
+                continue;
+            }
+            String key = scan.key();
+            if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+                results[i] = SyncResult.of(key, REJECTED, "Missing or over-long idempotency key");
+            } else if (byKey.containsKey(key)) {
+                results[i] = SyncResult.of(key, DUPLICATE, "Key repeated in this batch");
+            } else {
+                String problem = rejection(scan, today);
+                Optional<StudentIdentifierResolver.StudentRef> student = problem == null ? resolve(scan) : Optional.empty();
+                if (problem == null && student.isEmpty()) {
+                    problem = "Student not found: " + scan.qrData();
+                }
+                if (problem != null) {
+                    results[i] = SyncResult.of(key, REJECTED, problem);
+                } else {
+                    byKey.put(key, new Candidate(i, scan, student.get(), scan.scannedAt().toLocalDate()));
+                }
+            }
+        }
+
+        List<Candidate> applied = new TransactionTemplate(transactionManager).execute(status ->
+                apply(deviceId, markedBy, byKey, results));
+
+        for (Candidate candidate : applied) {
+            markedStudentBitmap.record(candidate.student().id(), candidate.date(), candidate.scan().status(),
+                    candidate.scan().scannedAt());
+        }
+
+        int rejected = 0;
+        int duplicates = 0;
+        for (SyncResult result : results) {
+            if (REJECTED.equals(result.outcome())) {
+                rejected++;
+            } else if (DUPLICATE.equals(result.outcome())) {
+                duplicates++;
+            }
+        }
+        System.out.println("📶 Synced " + scans.size() + " offline scans from " + deviceId + ": " + applied.size()
+                + " applied, " + duplicates + " duplicate, " + rejected + " rejected");
+        return List.of(results);
+    }
+
+    // Statuses are matched the way /attendance/api/scan matches them: trimmed and upper-cased
+    private static OfflineScan normalise(OfflineScan scan) {
+        if (scan == null || scan.status() == null) {
+            return scan;
+        }
+        return new OfflineScan(scan.key(), scan.qrData(), scan.status().trim().toUpperCase(), scan.remarks(),
+                scan.scannedAt());
+    }
+
+    // Keys already synced from an earlier attempt are neither applied nor re-recorded
+    private List<Candidate> apply(String deviceId, String markedBy, Map<String, Candidate> byKey, SyncResult[] results) {
+        if (byKey.isEmpty()) {
+            return List.of();
+        }
+        for (String key : syncedScanRepository.findExistingKeys(byKey.keySet())) {
+            Candidate candidate = byKey.remove(key);
+            results[candidate.position()] = SyncResult.of(key, DUPLICATE, "Already synced");
+        }
+        if (byKey.isEmpty()) {
+            return List.of();
+        }
+
+        // The upsert keeps the latest mark per student and day, within the batch and against the table
+        List<Candidate> candidates = new ArrayList<>(byKey.values());
+        List<Attendance> marks = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            marks.add(toAttendance(candidate, markedBy));
+        }
+        List<UpsertResult> written = attendanceRepository.upsertAll(marks);
+
+        List<Candidate> applied = new ArrayList<>();
+        List<Object[]> keyRows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            OfflineScan scan = candidate.scan();
+            String outcome;
+            if (written.get(i).outcome() == UpsertOutcome.SKIPPED_OLDER) {
+                outcome = SUPERSEDED;
+                results[candidate.position()] = new SyncResult(scan.key(), outcome, "A later mark is already recorded",
+                        candidate.student(), scan.status(), candidate.date(), scan.scannedAt());
+            } else {
+                outcome = APPLIED;
+                applied.add(candidate);
+                results[candidate.position()] = new SyncResult(scan.key(), outcome, "Marked " + scan.status(),
+                        candidate.student(), scan.status(), candidate.date(), scan.scannedAt());
+            }
+            keyRows.add(new Object[]{scan.key(), deviceId, outcome, now});
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_KEY, keyRows);
+        return applied;
+    }
+
+    private Attendance toAttendance(Candidate candidate, String markedBy) {
+        OfflineScan scan = candidate.scan();
+        Attendance attendance = new Attendance(studentService.getStudentReference(candidate.student().id()), scan.status());
+        attendance.setAttendanceDate(candidate.date());
+        attendance.setMarkedAt(scan.scannedAt());
+        attendance.setRemarks(scan.remarks() == null || scan.remarks().isBlank() ? null : scan.remarks());
+        attendance.setMarkedBy(markedBy);
+        attendance.setQrScanned(true);
+        return attendance;
+    }
+
+    // Why the scan cannot be applied, or null when it can (the student is resolved separately)
+    private String rejection(OfflineScan scan, LocalDate today) {
+        if (scan.scannedAt() == null) {
+            return "Missing scan time";
+        }
+        if (scan.scannedAt().isAfter(LocalDateTime.now().plusSeconds(maxClockSkewSeconds))) {
+            return "Scan time " + scan.scannedAt() + " is in the future; check the kiosk clock";
+        }
+        LocalDate date = scan.scannedAt().toLocalDate();
+        if (date.isBefore(today.minusDays(maxAgeDays))) {
+            return "Scan from " + date + " is older than " + maxAgeDays + " days";
+        }
+        if (scan.status() == null || !AttendanceService.SCAN_STATUSES.contains(scan.status())) {
+            return "Unknown status: " + scan.status();
+        }
+        if (holidayService.isNoAttendanceDay(date)) {
+            return "Cannot mark attendance on " + date + ". It's a holiday";
+        }
+        return null;
+    }
+
+    private Optional<StudentIdentifierResolver.StudentRef> resolve(OfflineScan scan) {
+        if (scan.qrData() == null || scan.qrData().isBlank()) {
+            return Optional.empty();
+        }
+        return studentIdentifierResolver.resolve(attendanceService.extractStudentIdentifier(scan.qrData()));
+    }
+
+    @Scheduled(cron = "${attendance.sync.key-cleanup-cron:0 30 0 * * *}")
+    public void deleteExpiredKeys() {
+        int deleted = syncedScanRepository.deleteSyncedBefore(LocalDateTime.now().minusDays(keyRetentionDays));
+        if (deleted > 0) {
+            System.out.println("🧹 Deleted " + deleted + " synced scan keys older than " + keyRetentionDays + " days");
+        }
+    }
+}
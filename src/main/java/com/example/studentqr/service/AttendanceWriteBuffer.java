@@ -0,0 +1,375 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Attendance;
+import com.example.studentqr.model.Student;
+import com.example.studentqr.repository.AttendanceRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Optional write-behind for attendance marks (attendance.write-behind.enabled). Validated marks are
+// acknowledged right away and queued in a bounded buffer; one flusher thread writes them every
+// flush interval or batch size, whichever comes first, as one batched MERGE.
+// Marks that cannot be written (shutdown with the database gone, repeated failures) go to a journal
+// file that is replayed at the next startup.
+@Service
+public class AttendanceWriteBuffer {
+
+    // One queued mark; the last one per (student, date) in a batch wins
+    public record PendingMark(String studentId, LocalDate date, String status, String remarks,
+                              String markedBy, LocalDateTime markedAt, boolean qrScanned) {
+
+        Attendance toAttendance() {
+            Student student = new Student();
+            student.setId(studentId);
+            Attendance attendance = new Attendance();
+            attendance.setStudent(student);
+            attendance.setAttendanceDate(date);
+            attendance.setStatus(status);
+            attendance.setRemarks(remarks);
+            attendance.setMarkedBy(markedBy);
+            attendance.setMarkedAt(markedAt);
+            attendance.setQrScanned(qrScanned);
+            return attendance;
+        }
+    }
+
+    // The buffer is full (or shutting down): a server-side condition, so the kiosk should retry the scan
+    public static class BufferFullException extends IllegalStateException {
+        public BufferFullException(String message) {
+            super(message);
+        }
+    }
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${attendance.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${attendance.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${attendance.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${attendance.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    // How long a scan waits for room when the buffer is full before it is refused
+    @Value("${attendance.write-behind.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    @Value("${attendance.write-behind.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${attendance.write-behind.journal:attendance-journal.ndjson}")
+    private String journalFile;
+
+    private BlockingQueue<PendingMark> queue;
+    private Thread flusher;
+    private volatile boolean running;
+    // submit() holds the read lock from the running check through the offer; stop() takes the
+    // write lock to turn running off, so no mark can land in the queue after the final drain
+    private final ReentrantReadWriteLock submitLock = new ReentrantReadWriteLock();
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder journaled = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong lastFlushMs = new AtomicLong();
+    private final AtomicLong maxFlushMs = new AtomicLong();
+    private final AtomicLong maxDepth = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        flusher = new Thread(this::flushLoop, "attendance-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        System.out.println("📝 Attendance write-behind enabled: capacity " + capacity + ", batch " + batchSize
+                + ", every " + flushIntervalMs + " ms");
+    }
+
+    // Drain what is left; anything the database no longer accepts goes to the journal
+    @PreDestroy
+    public void stop() {
+        if (!enabled) {
+            return;
+        }
+        submitLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            submitLock.writeLock().unlock();
+        }
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingMark> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining, 1);
+        }
+        System.out.println("📝 Attendance write-behind stopped: " + written.sum() + " marks written, "
+                + journaled.sum() + " journaled, " + dropped.sum() + " dropped");
+    }
+
+    // Marks journaled by an earlier run are written before kiosks start scanning, whether or not
+    // write-behind is still enabled
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayJournal() {
+        Path path = Paths.get(journalFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<PendingMark> marks = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    marks.add(objectMapper.readValue(line, PendingMark.class));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Could not read attendance journal " + path + ": " + e.getMessage());
+            return;
+        }
+
+        // Set aside first, so marks that fail again are journaled into a fresh file
+        Path replayed = path.resolveSibling(path.getFileName() + ".replayed");
+        try {
+            Files.move(path, replayed, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("❌ Could not set aside attendance journal " + path + ": " + e.getMessage());
+            return;
+        }
+        for (int from = 0; from < marks.size(); from += batchSize) {
+            flush(marks.subList(from, Math.min(from + batchSize, marks.size())), maxAttempts);
+        }
+        try {
+            Files.deleteIfExists(replayed);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not remove replayed journal " + replayed + ": " + e.getMessage());
+        }
+        System.out.println("📝 Replayed " + marks.size() + " journaled attendance marks from " + path);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Blocks up to the offer timeout while the buffer is full; past that the scan is refused so the
+    // kiosk retries instead of the server piling up requests
+    public void submit(PendingMark mark) {
+        boolean accepted;
+        submitLock.readLock().lock();
+        try {
+            accepted = running && queue.offer(mark, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        } finally {
+            submitLock.readLock().unlock();
+        }
+        if (!accepted) {
+            refused.increment();
+            throw new BufferFullException("Attendance is busy right now, please scan again");
+        }
+        enqueued.increment();
+        maxDepth.accumulateAndGet(queue.size(), Math::max);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long flushCount = flushes.sum();
+        stats.put("enabled", enabled);
+        stats.put("queueDepth", queue != null ? queue.size() : 0);
+        stats.put("maxQueueDepth", maxDepth.get());
+        stats.put("capacity", capacity);
+        stats.put("enqueued", enqueued.sum());
+        stats.put("refused", refused.sum());
+        stats.put("written", written.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("journaled", journaled.sum());
+        stats.put("flushes", flushCount);
+        stats.put("failedFlushes", failedFlushes.sum());
+        stats.put("lastFlushMs", lastFlushMs.get());
+        stats.put("maxFlushMs", maxFlushMs.get());
+        stats.put("avgFlushMs", flushCount > 0 ? flushNanos.sum() / 1_000_000.0 / flushCount : 0.0);
+        return stats;
+    }
+
+    private void flushLoop() {
+        List<PendingMark> batch = new ArrayList<>(batchSize);
+        boolean stopping = false;
+        while (running && !stopping) {
+            try {
+                PendingMark first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Keep collecting until the batch is full or the interval since the first mark is up
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingMark next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Write what was collected; stop() drains whatever is still queued
+                stopping = true;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch, stopping ? 1 : maxAttempts);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMark> batch, int attempts) {
+        Collection<PendingMark> marks = latestPerStudentAndDate(batch);
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            long start = System.nanoTime();
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> upsert(marks));
+                recordFlush(System.nanoTime() - start);
+                written.add(marks.size());
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Usually one bad row (a student deleted since the scan); the rest can still go in
+                failedFlushes.increment();
+                flushRowByRow(marks);
+                return;
+            } catch (Exception e) {
+                failedFlushes.increment();
+                System.err.println("❌ Attendance flush of " + marks.size() + " marks failed (attempt "
+                        + attempt + "/" + attempts + "): " + e.getMessage());
+                if (attempt < attempts) {
+                    sleepQuietly(flushIntervalMs * attempt);
+                }
+            }
+        }
+        journal(marks);
+    }
+
+    private void flushRowByRow(Collection<PendingMark> marks) {
+        List<PendingMark> unwritten = new ArrayList<>();
+        for (PendingMark mark : marks) {
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> upsert(List.of(mark)));
+                written.increment();
+            } catch (DataIntegrityViolationException e) {
+                dropped.increment();
+                System.err.println("❌ Dropped attendance mark for student " + mark.studentId() + " on "
+                        + mark.date() + ": " + e.getMostSpecificCause().getMessage());
+            } catch (Exception e) {
+                unwritten.add(mark);
+            }
+        }
+        if (!unwritten.isEmpty()) {
+            journal(unwritten);
+        }
+    }
+
+    private void upsert(Collection<PendingMark> marks) {
+        attendanceRepository.upsertAll(marks.stream().map(PendingMark::toAttendance).toList());
+    }
+
+    private static Collection<PendingMark> latestPerStudentAndDate(List<PendingMark> batch) {
+        Map<String, PendingMark> latest = new LinkedHashMap<>();
+        for (PendingMark mark : batch) {
+            latest.put(mark.studentId() + "|" + mark.date(), mark);
+        }
+        return latest.values();
+    }
+
+    private synchronized void journal(Collection<PendingMark> marks) {
+        Path path = Paths.get(journalFile);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (PendingMark mark : marks) {
+                writer.write(objectMapper.writeValueAsString(mark));
+                writer.newLine();
+            }
+            journaled.add(marks.size());
+            System.err.println("📝 Journaled " + marks.size() + " attendance marks to " + path.toAbsolutePath());
+        } catch (IOException e) {
+            dropped.add(marks.size());
+            System.err.println("❌ Lost " + marks.size() + " attendance marks, journal not writable: " + e.getMessage());
+        }
+    }
+
+    private void recordFlush(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        flushes.increment();
+        flushNanos.add(nanos);
+        lastFlushMs.set(millis);
+        maxFlushMs.accumulateAndGet(millis, Math::max);
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
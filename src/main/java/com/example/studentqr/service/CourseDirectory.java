@@ -0,0 +1,149 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import com.example.studentqr.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Distinct courses with their student counts, kept current by student writes so course filters
+// and per-course totals never need to load the roster.
+@Service
+public class CourseDirectory implements StudentChangeListener {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Each student's current course, so a course change can move the count
+    private Map<String, String> courseById = new HashMap<>();
+    private TreeMap<String, Integer> counts = new TreeMap<>();
+
+    private boolean rebuilding;
+    private final List<Object> pendingChanges = new ArrayList<>();
+
+    private record Assignment(String studentId, String course) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Object[]> rows = studentRepository.findAllCourseAssignments();
+
+        lock.writeLock().lock();
+        try {
+            courseById = new HashMap<>(rows.size() * 2);
+            counts = new TreeMap<>();
+            for (Object[] row : rows) {
+                assign((String) row[0], (String) row[1]);
+            }
+            for (Object change : pendingChanges) {
+                if (change instanceof Assignment assignment) {
+                    assign(assignment.studentId(), assignment.course());
+                } else {
+                    unassign((String) change);
+                }
+            }
+            pendingChanges.clear();
+            rebuilding = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("🏫 Course directory built: " + counts.size() + " courses, " + rows.size() + " students");
+    }
+
+    @Override
+    public void onStudentSaved(Student student) {
+        lock.writeLock().lock();
+        try {
+            assign(student.getId(), student.getCourse());
+            if (rebuilding) {
+                pendingChanges.add(new Assignment(student.getId(), student.getCourse()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onStudentDeleted(String studentId) {
+        lock.writeLock().lock();
+        try {
+            unassign(studentId);
+            if (rebuilding) {
+                pendingChanges.add(studentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Sorted by name
+    public List<String> getCourses() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(counts.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Course name to number of students, sorted by name
+    public Map<String, Integer> getStudentCounts() {
+        lock.readLock().lock();
+        try {
+            return new LinkedHashMap<>(counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getStudentCount(String course) {
+        lock.readLock().lock();
+        try {
+            return counts.getOrDefault(course, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean hasCourse(String course) {
+        return getStudentCount(course) > 0;
+    }
+
+    private void assign(String studentId, String course) {
+        String previous = courseById.put(studentId, course);
+        if (previous != null) {
+            decrement(previous);
+        }
+        counts.merge(course, 1, Integer::sum);
+    }
+
+    private void unassign(String studentId) {
+        String previous = courseById.remove(studentId);
+        if (previous != null) {
+            decrement(previous);
+        }
+    }
+
+    // A course disappears with its last student
+    private void decrement(String course) {
+        counts.computeIfPresent(course, (name, count) -> count > 1 ? count - 1 : null);
+    }
+}
@@ -14,6 +14,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class HolidayService {
@@ -28,6 +30,12 @@ public class HolidayService {
     @Autowired
     private AttendanceService attendanceService;
 
+    // isNoAttendanceDay answers per date; every scan asks and holidays rarely change.
+    // Cleared on every holiday write, and a lookup that raced with one is not cached.
+    private static final int MAX_CACHED_DAYS = 366;
+    private final Map<LocalDate, Boolean> noAttendanceDays = new ConcurrentHashMap<>();
+    private final AtomicLong holidayVersion = new AtomicLong();
+
     public void initializePredefinedHolidays() {
         int currentYear = Year.now().getValue();
 
@@ -90,6 +98,7 @@ public class HolidayService {
         });
 
         holidayRepository.saveAll(predefinedHolidays);
+        holidaysChanged();
     }
 
     // ADD THIS METHOD: Initialize Custom Date Ranges for Activities/Breaks
@@ -302,15 +311,40 @@ public class HolidayService {
     }
 
     public Holiday saveHoliday(Holiday holiday) {
-        return holidayRepository.save(holiday);
+        try {
+            return holidayRepository.save(holiday);
+        } finally {
+            holidaysChanged();
+        }
     }
 
     public void deleteHoliday(Long id) {
-        holidayRepository.deleteById(id);
+        try {
+            holidayRepository.deleteById(id);
+        } finally {
+            holidaysChanged();
+        }
     }
 
     public boolean isNoAttendanceDay(LocalDate date) {
-        return holidayRepository.isNoAttendanceDay(date);
+        Boolean cached = noAttendanceDays.get(date);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = holidayVersion.get();
+        boolean noAttendance = holidayRepository.isNoAttendanceDay(date);
+        if (holidayVersion.get() == seen) {
+            if (noAttendanceDays.size() >= MAX_CACHED_DAYS) {
+                noAttendanceDays.clear();
+            }
+            noAttendanceDays.put(date, noAttendance);
+        }
+        return noAttendance;
+    }
+
+    private void holidaysChanged() {
+        holidayVersion.incrementAndGet();
+        noAttendanceDays.clear();
     }
 
     public List<Holiday> getHolidaysForDate(LocalDate date) {
@@ -0,0 +1,210 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import com.example.studentqr.repository.AttendanceRepository;
+import com.example.studentqr.util.CompactBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Who has been marked today, and with which status, so a repeated scan of the same code can be
+// answered without touching the database. Students get a dense index on first sight; each status
+// is a compact bitmap over those indexes and the mark times sit in a parallel array.
+@Service
+public class MarkedStudentBitmap implements StudentChangeListener {
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    // Re-scans with the same status inside this window are short-circuited; 0 turns it off
+    @Value("${attendance.rescan-window-seconds:600}")
+    private long rescanWindowSeconds;
+
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private LocalDate day = LocalDate.now();
+    private final Map<String, CompactBitmap> byStatus = new HashMap<>();
+    // Seconds into the day of each student's last mark, indexed like the bitmaps
+    private int[] markedSeconds = new int[1024];
+
+    private boolean rebuilding;
+    private final List<Object> pendingChanges = new ArrayList<>();
+
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder passedThrough = new LongAdder();
+
+    private record Mark(String studentId, LocalDate date, String status, LocalDateTime markedAt) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Object[]> rows = attendanceRepository.findMarksByDate(today);
+
+        lock.writeLock().lock();
+        try {
+            day = today;
+            byStatus.clear();
+            Arrays.fill(markedSeconds, 0);
+            for (Object[] row : rows) {
+                apply(new Mark((String) row[0], today, (String) row[1], (LocalDateTime) row[2]));
+            }
+            for (Object change : pendingChanges) {
+                if (change instanceof Mark mark) {
+                    apply(mark);
+                } else {
+                    forget((String) change);
+                }
+            }
+            pendingChanges.clear();
+            rebuilding = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("🧮 Marked-student bitmap for " + today + " built from " + rows.size() + " marks");
+    }
+
+    // A new day starts empty; anything already marked for it (auto-marked holidays) is loaded back
+    @Scheduled(cron = "${attendance.rescan-rollover-cron:0 0 0 * * *}")
+    public void rollover() {
+        rebuild();
+    }
+
+    // When the student already has this status on this date from a mark inside the window, that mark's time
+    public Optional<LocalDateTime> recentMark(String studentId, LocalDate date, String status) {
+        if (rescanWindowSeconds <= 0) {
+            return Optional.empty();
+        }
+        Integer index = indexes.get(studentId);
+        lock.readLock().lock();
+        try {
+            CompactBitmap marked = byStatus.get(status);
+            if (index != null && date.equals(day) && marked != null && marked.contains(index)) {
+                LocalDateTime markedAt = date.atStartOfDay().plusSeconds(markedSeconds[index] - 1);
+                if (!markedAt.plusSeconds(rescanWindowSeconds).isBefore(LocalDateTime.now())) {
+                    shortCircuited.increment();
+                    return Optional.of(markedAt);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        passedThrough.increment();
+        return Optional.empty();
+    }
+
+    // Called once a mark has been written (or queued for write-behind)
+    public void record(String studentId, LocalDate date, String status, LocalDateTime markedAt) {
+        Mark mark = new Mark(studentId, date, status, markedAt);
+        lock.writeLock().lock();
+        try {
+            apply(mark);
+            if (rebuilding) {
+                pendingChanges.add(mark);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onStudentSaved(Student student) {
+        // Marks do not depend on anything a student edit can change
+    }
+
+    @Override
+    public void onStudentDeleted(String studentId) {
+        lock.writeLock().lock();
+        try {
+            forget(studentId);
+            if (rebuilding) {
+                pendingChanges.add(studentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> counts = new HashMap<>();
+            long bytes = markedSeconds.length * 4L;
+            for (Map.Entry<String, CompactBitmap> entry : byStatus.entrySet()) {
+                counts.put(entry.getKey(), entry.getValue().cardinality());
+                bytes += entry.getValue().sizeInBytes();
+            }
+            stats.put("day", day);
+            stats.put("markedByStatus", counts);
+            stats.put("approxBytes", bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("indexedStudents", indexes.size());
+        stats.put("rescanWindowSeconds", rescanWindowSeconds);
+        stats.put("shortCircuited", shortCircuited.sum());
+        stats.put("passedThrough", passedThrough.sum());
+        return stats;
+    }
+
+    // Caller holds the write lock. Marks for other days are ignored, and so are marks older than the
+    // one already held: synced offline scans and write-behind flushes can arrive out of order, and
+    // the table keeps the latest mark, so the bitmap must too.
+    private void apply(Mark mark) {
+        if (!mark.date().equals(day) || mark.status() == null) {
+            return;
+        }
+        int index = indexes.computeIfAbsent(mark.studentId(), id -> nextIndex.getAndIncrement());
+        if (index >= markedSeconds.length) {
+            markedSeconds = Arrays.copyOf(markedSeconds, Math.max(index + 1, markedSeconds.length * 2));
+        }
+        // Stored +1 so that 0 means no time recorded
+        LocalDateTime markedAt = mark.markedAt() != null ? mark.markedAt() : LocalDateTime.now();
+        int second = markedAt.toLocalTime().toSecondOfDay() + 1;
+        if (second < markedSeconds[index]) {
+            return;
+        }
+        for (CompactBitmap bitmap : byStatus.values()) {
+            bitmap.remove(index);
+        }
+        byStatus.computeIfAbsent(mark.status(), status -> new CompactBitmap()).add(index);
+        markedSeconds[index] = second;
+    }
+
+    private void forget(String studentId) {
+        Integer index = indexes.remove(studentId);
+        if (index != null) {
+            for (CompactBitmap bitmap : byStatus.values()) {
+                bitmap.remove(index);
+            }
+            markedSeconds[index] = 0;
+        }
+    }
+}
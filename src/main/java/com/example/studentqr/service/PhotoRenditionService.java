@@ -0,0 +1,289 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.StudentPhoto;
+import com.example.studentqr.model.StudentPhotoRendition;
+import com.example.studentqr.repository.StudentPhotoRenditionRepository;
+import com.example.studentqr.repository.StudentPhotoRepository;
+import com.example.studentqr.util.ImageResizer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Renders fixed-size JPEG renditions of each photo once, off the request thread,
+// so the photo endpoint serves stored bytes instead of rescaling on every request.
+@Service
+public class PhotoRenditionService {
+
+    public static final int[] RENDITION_WIDTHS = {64, 100, 300};
+
+    @Autowired
+    private StudentPhotoRepository studentPhotoRepository;
+
+    @Autowired
+    private StudentPhotoRenditionRepository renditionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // 0 = one worker per core; backfills keep every worker busy
+    @Value("${photo.renditions.workers:0}")
+    private int workers;
+
+    @Value("${photo.renditions.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${photo.renditions.original-max-width:1024}")
+    private int originalMaxWidth;
+
+    @Value("${photo.renditions.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    // Photo version (updatedAt) per student that could not be decoded; not retried until the photo changes
+    private final Map<String, LocalDateTime> unrenderable = new ConcurrentHashMap<>();
+    private final AtomicLong rendered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong backfilled = new AtomicLong();
+    private ThreadPoolExecutor executor;
+    private ExecutorService backfillExecutor;
+
+    @PostConstruct
+    public void start() {
+        if (workers <= 0) {
+            workers = Runtime.getRuntime().availableProcessors();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "photo-renditions-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "photo-renditions-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        backfillExecutor.shutdownNow();
+        executor.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            startBackfill();
+        }
+    }
+
+    // Render (again) after the surrounding transaction commits, if any
+    public void enqueue(String studentId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(studentId);
+                }
+            });
+        } else {
+            submit(studentId);
+        }
+    }
+
+    // Smallest rendition at least as wide as requested, the normalized original above that.
+    // Empty if the renditions are missing or older than the photo; they are re-rendered in the background.
+    public Optional<StudentPhotoRendition> findRendition(String studentId, int width, LocalDateTime photoUpdatedAt) {
+        int target = StudentPhotoRendition.ORIGINAL;
+        for (int renditionWidth : RENDITION_WIDTHS) {
+            if (renditionWidth >= width) {
+                target = renditionWidth;
+                break;
+            }
+        }
+
+        Optional<StudentPhotoRendition> rendition = renditionRepository.findByStudentIdAndWidth(studentId, target)
+                .filter(r -> r.getSourceUpdatedAt().equals(photoUpdatedAt));
+        if (rendition.isEmpty() && !slots.containsKey(studentId) && !isUnrenderable(studentId, photoUpdatedAt)) {
+            submit(studentId);
+        }
+        return rendition;
+    }
+
+    // True once this version of the photo has failed to decode
+    public boolean isUnrenderable(String studentId, LocalDateTime photoUpdatedAt) {
+        return photoUpdatedAt != null && photoUpdatedAt.equals(unrenderable.get(studentId));
+    }
+
+    public void deleteRenditions(String studentId) {
+        renditionRepository.deleteByStudentId(studentId);
+        unrenderable.remove(studentId);
+    }
+
+    // Queue every student whose renditions are missing or stale; runs in the background
+    public void startBackfill() {
+        backfillExecutor.execute(() -> {
+            List<String> ids = renditionRepository.findStudentIdsNeedingRenditions();
+            if (!ids.isEmpty()) {
+                System.out.println("📷 Backfilling photo renditions for " + ids.size() + " students");
+            }
+            for (String id : ids) {
+                // Wait for room in the queue rather than dropping students
+                while (!submit(id)) {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                backfilled.incrementAndGet();
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("widths", RENDITION_WIDTHS);
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("pendingStudents", slots.size());
+        stats.put("rendered", rendered.get());
+        stats.put("failed", failed.get());
+        stats.put("unrenderable", unrenderable.size());
+        stats.put("backfilled", backfilled.get());
+        return stats;
+    }
+
+    // Returns false only if the work queue is full
+    private boolean submit(String studentId) {
+        Slot slot = slots.computeIfAbsent(studentId, id -> new Slot());
+        synchronized (slot) {
+            if (slot.running) {
+                slot.dirty = true;
+                return true;
+            }
+            if (slot.queued) {
+                return true;
+            }
+            slot.queued = true;
+        }
+        try {
+            executor.execute(() -> run(studentId, slot));
+            return true;
+        } catch (RejectedExecutionException e) {
+            synchronized (slot) {
+                slot.queued = false;
+            }
+            slots.remove(studentId, slot);
+            return false;
+        }
+    }
+
+    private void run(String studentId, Slot slot) {
+        synchronized (slot) {
+            slot.queued = false;
+            slot.running = true;
+        }
+        try {
+            render(studentId);
+            rendered.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            System.err.println("Photo rendition failed for student " + studentId + ": " + e.getMessage());
+        } finally {
+            boolean rerun;
+            synchronized (slot) {
+                slot.running = false;
+                rerun = slot.dirty;
+                slot.dirty = false;
+                if (rerun) {
+                    slot.queued = true;
+                }
+            }
+            if (rerun) {
+                try {
+                    executor.execute(() -> run(studentId, slot));
+                } catch (RejectedExecutionException e) {
+                    // Same as submit(): leaving queued set would make every later enqueue() a no-op
+                    synchronized (slot) {
+                        slot.queued = false;
+                    }
+                    slots.remove(studentId, slot);
+                    failed.incrementAndGet();
+                    System.err.println("Photo rendition rerun dropped for student " + studentId + ": queue full");
+                }
+            } else {
+                slots.remove(studentId, slot);
+            }
+        }
+    }
+
+    private void render(String studentId) throws Exception {
+        Optional<StudentPhoto> photoOpt = studentPhotoRepository.findById(studentId);
+        if (photoOpt.isEmpty()) {
+            renditionRepository.deleteByStudentId(studentId);
+            unrenderable.remove(studentId);
+            return;
+        }
+
+        // Every size from one subsampled decode
+        StudentPhoto photo = photoOpt.get();
+        int[] widths = Arrays.copyOf(RENDITION_WIDTHS, RENDITION_WIDTHS.length + 1);
+        widths[RENDITION_WIDTHS.length] = originalMaxWidth;
+        byte[][] jpegs;
+        try {
+            jpegs = ImageResizer.resizeAll(photo.getData(), widths);
+        } catch (Exception e) {
+            // A broken upload fails the same way every time; page views must not decode it again
+            unrenderable.put(studentId, photo.getUpdatedAt());
+            throw e;
+        }
+        unrenderable.remove(studentId);
+
+        List<StudentPhotoRendition> renditions = new ArrayList<>();
+        for (int i = 0; i < RENDITION_WIDTHS.length; i++) {
+            renditions.add(new StudentPhotoRendition(studentId, RENDITION_WIDTHS[i], jpegs[i], photo.getUpdatedAt()));
+        }
+        renditions.add(new StudentPhotoRendition(studentId, StudentPhotoRendition.ORIGINAL,
+                jpegs[RENDITION_WIDTHS.length], photo.getUpdatedAt()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            renditionRepository.deleteByStudentId(studentId);
+            renditionRepository.saveAll(renditions);
+        });
+    }
+
+    private static class Slot {
+        private boolean queued;
+        private boolean running;
+        private boolean dirty;
+    }
+}
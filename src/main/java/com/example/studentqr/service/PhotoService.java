@@ -0,0 +1,134 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.StudentPhoto;
+import com.example.studentqr.repository.StudentPhotoRepository;
+import com.example.studentqr.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Optional;
+
+// Student photos as raw bytes in their own table, loaded only when a photo is actually served
+@Service
+public class PhotoService {
+
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    @Autowired
+    private StudentPhotoRepository studentPhotoRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private PhotoRenditionService photoRenditionService;
+
+    @Autowired
+    private RosterVersion rosterVersion;
+
+    @Value("${photo.upload.max-bytes:5242880}")
+    private int maxUploadBytes;
+
+    // Reads an uploaded image up to the size limit. The type is taken from the bytes, not from what the client declared.
+    public PhotoUpload readUpload(InputStream input) throws IOException {
+        byte[] data = input.readNBytes(maxUploadBytes + 1);
+        if (data.length == 0) {
+            throw new IllegalArgumentException("Photo data is empty");
+        }
+        if (data.length > maxUploadBytes) {
+            throw new IllegalArgumentException("Photo is larger than " + (maxUploadBytes / 1024) + " KB");
+        }
+        String contentType = sniffContentType(data);
+        if (contentType == null) {
+            throw new IllegalArgumentException("Photo must be a JPEG or PNG image");
+        }
+        return new PhotoUpload(data, contentType);
+    }
+
+    // Base64 / data URL photos as stored before the split (see PhotoColumnMigration)
+    @Transactional
+    public StudentPhoto savePhotoDataUrl(String studentId, String dataUrl) {
+        if (dataUrl == null || dataUrl.isBlank()) {
+            throw new IllegalArgumentException("Photo data is empty");
+        }
+
+        int comma = dataUrl.indexOf(',');
+        byte[] data = Base64.getMimeDecoder().decode(comma >= 0 ? dataUrl.substring(comma + 1) : dataUrl);
+        String contentType = sniffContentType(data);
+        if (contentType == null) {
+            throw new IllegalArgumentException("Photo is not a JPEG or PNG image");
+        }
+        return savePhoto(studentId, data, contentType);
+    }
+
+    @Transactional
+    public StudentPhoto savePhoto(String studentId, byte[] data, String contentType) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Photo data is empty");
+        }
+
+        // Millisecond precision so the value round-trips through the database unchanged
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        // Replaced in place; the previous bytes are never loaded
+        studentPhotoRepository.upsert(studentId, data, contentType, data.length, now);
+        StudentPhoto saved = new StudentPhoto();
+        saved.setStudentId(studentId);
+        saved.setData(data);
+        saved.setContentType(contentType);
+        saved.setSize(data.length);
+        saved.setUpdatedAt(now);
+
+        studentRepository.updatePhotoState(studentId, true, now);
+        rosterVersion.bump();
+        photoRenditionService.enqueue(studentId);
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<StudentPhoto> getPhoto(String studentId) {
+        return studentPhotoRepository.findById(studentId);
+    }
+
+    @Transactional
+    public void deletePhoto(String studentId) {
+        if (studentPhotoRepository.existsById(studentId)) {
+            studentPhotoRepository.deleteById(studentId);
+        }
+        photoRenditionService.deleteRenditions(studentId);
+        studentRepository.updatePhotoState(studentId, false, null);
+        rosterVersion.bump();
+    }
+
+    private static String sniffContentType(byte[] data) {
+        if (startsWith(data, JPEG_MAGIC)) {
+            return "image/jpeg";
+        }
+        if (startsWith(data, PNG_MAGIC)) {
+            return "image/png";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, byte[] magic) {
+        if (data.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (data[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public record PhotoUpload(byte[] data, String contentType) {
+    }
+}
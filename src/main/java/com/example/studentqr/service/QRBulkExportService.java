@@ -0,0 +1,207 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import com.example.studentqr.util.QRCodeUtil;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+public class QRBulkExportService {
+
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    // Encoded PNGs waiting to be written; bounds memory to a few images per core
+    private static final int IN_FLIGHT = PARALLELISM * 4;
+    private static final Duration JOB_RETENTION = Duration.ofMinutes(30);
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private QRCodeUtil qrCodeUtil;
+
+    private final ForkJoinPool encoderPool = new ForkJoinPool(PARALLELISM);
+    private final Map<String, BulkExportJob> jobs = new ConcurrentHashMap<>();
+
+    public BulkExportJob createJob(String jobId, String course) {
+        purgeFinishedJobs();
+        String id = (jobId != null && !jobId.isBlank()) ? jobId : UUID.randomUUID().toString();
+        BulkExportJob job = new BulkExportJob(id, course);
+        // A client-chosen id must not take over the progress of a job that is already tracked
+        if (jobs.putIfAbsent(id, job) != null) {
+            throw new IllegalArgumentException("Export job already exists: " + id);
+        }
+        return job;
+    }
+
+    public Optional<BulkExportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    // Encode QR codes in parallel and stream them into a ZIP, keeping submission order
+    public void writeZip(BulkExportJob job, OutputStream out) throws IOException {
+        List<Student> students = job.course != null
+                ? studentService.getStudentsByCourse(job.course)
+                : studentService.getAllStudents();
+        job.total.set(students.size());
+        job.status = "RUNNING";
+
+        Deque<ForkJoinTask<EncodedCode>> pending = new ArrayDeque<>();
+        Set<String> usedNames = new HashSet<>();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (Student student : students) {
+                pending.addLast(encoderPool.submit(() -> encode(student)));
+                if (pending.size() >= IN_FLIGHT) {
+                    writeEntry(zip, pending.removeFirst().join(), job, usedNames);
+                }
+            }
+            while (!pending.isEmpty()) {
+                writeEntry(zip, pending.removeFirst().join(), job, usedNames);
+            }
+            zip.finish();
+            job.status = "COMPLETED";
+        } catch (IOException | RuntimeException e) {
+            pending.forEach(task -> task.cancel(true));
+            job.status = "FAILED";
+            job.error = e.getMessage();
+            throw e;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private EncodedCode encode(Student student) {
+        String fileName = safeName("student_" + student.getRollNumber());
+        try {
+            return new EncodedCode(fileName, student.getId(), qrCodeUtil.generateStudentCardPng(student), null);
+        } catch (Exception e) {
+            return new EncodedCode(fileName, student.getId(), null, e.getMessage());
+        }
+    }
+
+    private static String safeName(String name) {
+        return name.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+
+    // Different roll numbers can sanitise to the same name ("A/1" and "A_1"); a ZIP entry name may
+    // only appear once, so later ones get the student id and, failing that, a counter
+    private static String uniqueEntryName(EncodedCode code, Set<String> usedNames) {
+        String name = code.fileName + ".png";
+        if (usedNames.add(name)) {
+            return name;
+        }
+        String base = code.fileName + "_" + safeName(String.valueOf(code.studentId));
+        name = base + ".png";
+        for (int n = 2; !usedNames.add(name); n++) {
+            name = base + "_" + n + ".png";
+        }
+        return name;
+    }
+
+    private void writeEntry(ZipOutputStream zip, EncodedCode code, BulkExportJob job, Set<String> usedNames)
+            throws IOException {
+        if (code.png == null) {
+            job.failed.incrementAndGet();
+            System.err.println("Bulk QR export skipped " + code.fileName + ": " + code.error);
+            return;
+        }
+
+        // PNG data is already deflated, so store it instead of compressing twice
+        CRC32 crc = new CRC32();
+        crc.update(code.png);
+        ZipEntry entry = new ZipEntry(uniqueEntryName(code, usedNames));
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(code.png.length);
+        entry.setCompressedSize(code.png.length);
+        entry.setCrc(crc.getValue());
+
+        zip.putNextEntry(entry);
+        zip.write(code.png);
+        zip.closeEntry();
+
+        job.completed.incrementAndGet();
+        job.bytesWritten.addAndGet(code.png.length);
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        encoderPool.shutdownNow();
+    }
+
+    // fileName is without the .png extension, which is added once the entry name is made unique
+    private record EncodedCode(String fileName, String studentId, byte[] png, String error) {
+    }
+
+    public static class BulkExportJob {
+        private final String id;
+        private final String course;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private volatile String status = "PENDING";
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        BulkExportJob(String id, String course) {
+            this.id = id;
+            this.course = course;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Map<String, Object> getProgress() {
+            Map<String, Object> progress = new HashMap<>();
+            int done = completed.get();
+            int totalCount = total.get();
+            double elapsedSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+            progress.put("jobId", id);
+            progress.put("course", course != null ? course : "ALL");
+            progress.put("status", status);
+            progress.put("total", totalCount);
+            progress.put("completed", done);
+            progress.put("failed", failed.get());
+            progress.put("bytesWritten", bytesWritten.get());
+            progress.put("percent", totalCount > 0 ? (done + failed.get()) * 100.0 / totalCount : 0.0);
+            progress.put("codesPerSecond", elapsedSeconds > 0 ? done / elapsedSeconds : 0.0);
+            progress.put("startedAt", startedAt);
+            progress.put("finishedAt", finishedAt);
+            if (error != null) {
+                progress.put("error", error);
+            }
+            return progress;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import com.example.studentqr.util.QRCodeCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Drops rendered QR images when the student they encode changes
+@Component
+public class QRCodeCacheInvalidator implements StudentChangeListener {
+
+    @Autowired
+    private QRCodeCache qrCodeCache;
+
+    @Override
+    public void onStudentSaved(Student student) {
+        qrCodeCache.invalidateStudent(student.getId());
+    }
+
+    @Override
+    public void onStudentDeleted(String studentId) {
+        qrCodeCache.invalidateStudent(studentId);
+    }
+}
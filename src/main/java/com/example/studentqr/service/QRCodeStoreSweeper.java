@@ -0,0 +1,109 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.repository.StudentRepository;
+import com.example.studentqr.util.QRCodeStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Deletes QR files in the store that no student references any more
+@Service
+public class QRCodeStoreSweeper {
+
+    @Autowired
+    private QRCodeStore qrCodeStore;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    // Files younger than this may belong to a write whose path is not committed yet
+    @Value("${qr.store.sweep-grace-minutes:10}")
+    private long graceMinutes;
+
+    private volatile Map<String, Object> lastRun = Map.of("status", "NEVER_RUN");
+
+    @Scheduled(initialDelayString = "${qr.store.sweep-interval-ms:3600000}",
+            fixedDelayString = "${qr.store.sweep-interval-ms:3600000}")
+    public void scheduledSweep() {
+        sweep();
+    }
+
+    public synchronized Map<String, Object> sweep() {
+        long started = System.nanoTime();
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(graceMinutes));
+
+        Set<Path> referenced = new HashSet<>();
+        for (String key : studentRepository.findAllQrCodePaths()) {
+            try {
+                referenced.add(qrCodeStore.resolve(key));
+            } catch (IllegalArgumentException e) {
+                // Key outside the store; nothing of ours to protect
+            }
+        }
+
+        int scanned = 0;
+        int deleted = 0;
+        long bytesReclaimed = 0;
+        // Only the sharded <h0h1>/<h2h3>/ layout; legacy flat files at the root are left alone
+        try (Stream<Path> files = Files.walk(qrCodeStore.getRoot(), 3)) {
+            List<Path> candidates = files
+                    .filter(Files::isRegularFile)
+                    .filter(qrCodeStore::isShardedFile)
+                    .toList();
+
+            for (Path path : candidates) {
+                scanned++;
+                if (referenced.contains(path.normalize())) {
+                    continue;
+                }
+                try {
+                    long size = qrCodeStore.deleteIfOlderThan(path, cutoff);
+                    if (size >= 0) {
+                        deleted++;
+                        bytesReclaimed += size;
+                    }
+                } catch (NoSuchFileException e) {
+                    // Already gone
+                } catch (IOException e) {
+                    System.err.println("Could not sweep QR file " + path + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("QR store sweep failed: " + e.getMessage());
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("status", "COMPLETED");
+        result.put("finishedAt", LocalDateTime.now());
+        result.put("referenced", referenced.size());
+        result.put("scanned", scanned);
+        result.put("deleted", deleted);
+        result.put("bytesReclaimed", bytesReclaimed);
+        result.put("durationMs", (System.nanoTime() - started) / 1_000_000);
+        lastRun = result;
+
+        if (deleted > 0) {
+            System.out.println("QR store sweep removed " + deleted + " orphaned file(s), " + bytesReclaimed + " bytes");
+        }
+        return result;
+    }
+
+    public Map<String, Object> getLastRun() {
+        return lastRun;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.util.QRFrameDecoder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Decodes kiosk camera frames on a small fixed pool. Each worker thread keeps its own
+// QRFrameDecoder, so readers and buffers are reused and never shared. The queue is short on
+// purpose: a kiosk sends a fresh frame a moment later, so a stale one is better refused than waited on.
+@Service
+public class QRFrameDecodeService {
+
+    @Value("${attendance.decode.workers:2}")
+    private int workers;
+
+    @Value("${attendance.decode.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${attendance.decode.timeout-ms:2000}")
+    private long timeoutMs;
+
+    // Longest side, in pixels, of the region handed to ZXing
+    @Value("${attendance.decode.max-side:800}")
+    private int maxSide;
+
+    // Default region of interest: a centred square covering this fraction of the frame
+    @Value("${attendance.decode.roi-fraction:0.8}")
+    private double roiFraction;
+
+    @Value("${attendance.decode.try-harder:false}")
+    private boolean tryHarder;
+
+    @Value("${attendance.decode.max-frame-bytes:5242880}")
+    private long maxFrameBytes;
+
+    private ThreadPoolExecutor executor;
+    private ThreadLocal<QRFrameDecoder> decoders;
+
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder decoded = new LongAdder();
+    private final LongAdder noCode = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+    private final AtomicLong maxDecodeNanos = new AtomicLong();
+
+    // text is null when no code was found; decodeMicros is time spent on the worker, excluding queueing
+    public record FrameResult(String text, long decodeMicros, int width, int height) {
+    }
+
+    // The pool could not decode this frame in time; nothing is wrong with the frame itself
+    public static class DecoderBusyException extends IllegalStateException {
+        public DecoderBusyException(String message) {
+            super(message);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        decoders = ThreadLocal.withInitial(() -> new QRFrameDecoder(maxSide, tryHarder));
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "qr-frame-decoder-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public QRFrameDecoder.Region defaultRegion() {
+        return QRFrameDecoder.Region.centered(roiFraction);
+    }
+
+    public FrameResult decode(byte[] jpeg, QRFrameDecoder.Region region) {
+        if (jpeg.length == 0) {
+            throw new IllegalArgumentException("Empty frame");
+        }
+        if (jpeg.length > maxFrameBytes) {
+            throw new IllegalArgumentException("Frame is larger than " + maxFrameBytes + " bytes");
+        }
+
+        Future<FrameResult> future;
+        try {
+            future = executor.submit(() -> decodeOnWorker(jpeg, region));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new DecoderBusyException("Frame decoder is busy, send the next frame");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            failed.increment();
+            throw new DecoderBusyException("Frame decode timed out after " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DecoderBusyException("Interrupted while decoding frame");
+        } catch (ExecutionException e) {
+            failed.increment();
+            Throwable cause = e.getCause();
+            throw new IllegalArgumentException(cause instanceof IOException ? cause.getMessage()
+                    : "Frame could not be decoded: " + cause);
+        }
+    }
+
+    private FrameResult decodeOnWorker(byte[] jpeg, QRFrameDecoder.Region region) throws IOException {
+        long started = System.nanoTime();
+        QRFrameDecoder.Result result = decoders.get().decode(jpeg, region);
+        long elapsed = System.nanoTime() - started;
+
+        frames.increment();
+        decodeNanos.add(elapsed);
+        maxDecodeNanos.accumulateAndGet(elapsed, Math::max);
+        if (result.text() != null) {
+            decoded.increment();
+        } else {
+            noCode.increment();
+        }
+        return new FrameResult(result.text(), elapsed / 1_000, result.width(), result.height());
+    }
+
+    public Map<String, Object> getStats() {
+        long frameCount = frames.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("workers", workers);
+        stats.put("queued", executor.getQueue().size());
+        stats.put("frames", frameCount);
+        stats.put("decoded", decoded.sum());
+        stats.put("noCode", noCode.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("avgDecodeMs", frameCount > 0 ? decodeNanos.sum() / 1e6 / frameCount : 0.0);
+        stats.put("maxDecodeMs", maxDecodeNanos.get() / 1e6);
+        stats.put("maxSide", maxSide);
+        stats.put("roiFraction", roiFraction);
+        return stats;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import com.example.studentqr.repository.StudentRepository;
+import com.example.studentqr.util.QRCodeUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Generates printable student QR codes off the request thread.
+// Requests for the same student are coalesced: at most one run is queued and one is in progress.
+@Service
+public class QRGenerationPipeline {
+
+    public enum State { QUEUED, RUNNING, RETRYING, READY, FAILED }
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private QRCodeUtil qrCodeUtil;
+
+    @Autowired
+    private RosterVersion rosterVersion;
+
+    @Value("${qr.pipeline.workers:2}")
+    private int workers;
+
+    @Value("${qr.pipeline.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${qr.pipeline.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${qr.pipeline.retry-delay-ms:2000}")
+    private long retryDelayMs;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService retryScheduler;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "qr-pipeline-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "qr-pipeline-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        retryScheduler.shutdownNow();
+        executor.shutdown();
+    }
+
+    // Request (re)generation; deferred until the surrounding transaction commits, if any
+    public void enqueue(String studentId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(studentId);
+                }
+            });
+        } else {
+            submit(studentId);
+        }
+    }
+
+    public Map<String, Object> getStatus(String studentId) {
+        Map<String, Object> status = new HashMap<>();
+        status.put("studentId", studentId);
+
+        Slot slot = slots.get(studentId);
+        if (slot != null) {
+            synchronized (slot) {
+                status.put("state", slot.state);
+                status.put("attempts", slot.attempts);
+                status.put("updatedAt", slot.updatedAt);
+                status.put("qrCodePath", slot.qrCodePath);
+                if (slot.error != null) {
+                    status.put("error", slot.error);
+                }
+            }
+            return status;
+        }
+
+        // Nothing queued or running: whatever the last run stored
+        Optional<Student> student = studentRepository.findById(studentId);
+        String path = student.map(Student::getQrCodePath).orElse(null);
+        status.put("state", path != null ? State.READY : "NONE");
+        status.put("qrCodePath", path);
+        return status;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Map<State, Long> byState = new HashMap<>();
+        slots.values().forEach(slot -> byState.merge(slot.state, 1L, Long::sum));
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("completedTasks", executor.getCompletedTaskCount());
+        stats.put("students", byState);
+        return stats;
+    }
+
+    private void submit(String studentId) {
+        while (true) {
+            Slot slot = slots.computeIfAbsent(studentId, id -> new Slot());
+            synchronized (slot) {
+                if (slots.get(studentId) != slot) {
+                    // Its run finished and released it in the meantime; take a fresh one
+                    continue;
+                }
+                if (slot.running) {
+                    // Picked up again as soon as the current run finishes
+                    slot.dirty = true;
+                    return;
+                }
+                if (slot.queued) {
+                    return;
+                }
+                slot.queued = true;
+                slot.attempts = 0;
+                slot.error = null;
+                slot.update(State.QUEUED);
+            }
+            dispatch(studentId, slot);
+            return;
+        }
+    }
+
+    private void dispatch(String studentId, Slot slot) {
+        try {
+            executor.execute(() -> run(studentId, slot));
+        } catch (RejectedExecutionException e) {
+            // Queue full: back off and try again rather than blocking the caller
+            synchronized (slot) {
+                slot.error = "Generation queue is full";
+                slot.update(State.RETRYING);
+            }
+            if (!retryScheduler.isShutdown()) {
+                retryScheduler.schedule(() -> dispatch(studentId, slot), retryDelayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void run(String studentId, Slot slot) {
+        synchronized (slot) {
+            slot.queued = false;
+            slot.running = true;
+            slot.attempts++;
+            slot.update(State.RUNNING);
+        }
+
+        boolean retry = false;
+        try {
+            Optional<Student> studentOpt = studentRepository.findById(studentId);
+            if (studentOpt.isEmpty()) {
+                return;
+            }
+
+            Student student = studentOpt.get();
+            String previousPath = student.getQrCodePath();
+            String filePath = qrCodeUtil.generateStudentQRCode(student);
+            studentRepository.updateQrCodePath(studentId, filePath);
+            rosterVersion.bump();
+            if (previousPath != null && !previousPath.equals(filePath)) {
+                qrCodeUtil.deleteQRCodeFile(previousPath);
+            }
+
+            synchronized (slot) {
+                slot.qrCodePath = filePath;
+                slot.error = null;
+                slot.update(State.READY);
+            }
+        } catch (Exception e) {
+            System.err.println("QR generation failed for student " + studentId + ": " + e.getMessage());
+            synchronized (slot) {
+                slot.error = e.getMessage();
+                retry = slot.attempts < maxAttempts;
+                slot.update(retry ? State.RETRYING : State.FAILED);
+            }
+        } finally {
+            boolean rerun;
+            synchronized (slot) {
+                slot.running = false;
+                rerun = slot.dirty || retry;
+                if (slot.dirty) {
+                    slot.dirty = false;
+                    slot.attempts = 0;
+                }
+                if (rerun) {
+                    slot.queued = true;
+                } else {
+                    // Done: the outcome is in the student row (or the log), so the slot is not kept
+                    slots.remove(studentId, slot);
+                }
+            }
+            if (rerun) {
+                if (retry && !retryScheduler.isShutdown()) {
+                    long delay = retryDelayMs * slot.attempts;
+                    retryScheduler.schedule(() -> dispatch(studentId, slot), delay, TimeUnit.MILLISECONDS);
+                } else {
+                    dispatch(studentId, slot);
+                }
+            }
+        }
+    }
+
+    private static class Slot {
+        private boolean queued;
+        private boolean running;
+        private boolean dirty;
+        private int attempts;
+        private State state;
+        private String error;
+        private String qrCodePath;
+        private LocalDateTime updatedAt;
+
+        void update(State newState) {
+            state = newState;
+            updatedAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Changes whenever any student row changes; used as the ETag of roster-wide responses.
+// The startup time is part of the value so a restart never reuses an old tag.
+@Component
+public class RosterVersion implements StudentChangeListener {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong counter = new AtomicLong();
+
+    public String current() {
+        return Long.toString(epoch, 36) + "-" + counter.get();
+    }
+
+    // Deferred until the surrounding transaction commits, if any, so the new version is
+    // never handed out together with data that does not include the change yet
+    public void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.incrementAndGet();
+                }
+            });
+        } else {
+            counter.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onStudentSaved(Student student) {
+        bump();
+    }
+
+    @Override
+    public void onStudentDeleted(String studentId) {
+        bump();
+    }
+}
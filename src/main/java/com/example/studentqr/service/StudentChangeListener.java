@@ -0,0 +1,12 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+
+// Notified by StudentService after a student is saved or deleted, so derived state
+// (caches, indexes) can update incrementally instead of being reloaded
+public interface StudentChangeListener {
+
+    void onStudentSaved(Student student);
+
+    void onStudentDeleted(String studentId);
+}
@@ -0,0 +1,116 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import com.example.studentqr.repository.StudentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Writes the roster row by row from a database cursor, so memory use does not grow with its size.
+// Photos are never inlined; "photoUrl" points at the cacheable photo endpoint instead.
+@Service
+public class StudentExportService {
+
+    public static final List<String> FIELDS = List.of(
+            "id", "name", "email", "course", "rollNumber", "createdAt",
+            "hasPhoto", "photoUpdatedAt", "photoUrl", "qrCodePath");
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Comma separated subset of FIELDS in the requested order; all fields when blank
+    public List<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return FIELDS;
+        }
+        List<String> selected = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || selected.contains(name)) {
+                continue;
+            }
+            if (!FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + " (available: " + String.join(", ", FIELDS) + ")");
+            }
+            selected.add(name);
+        }
+        return selected.isEmpty() ? FIELDS : selected;
+    }
+
+    // A JSON array, or one object per line when ndjson is set. Returns the number of rows written.
+    @Transactional(readOnly = true)
+    public int export(OutputStream out, List<String> fields, boolean ndjson) throws IOException {
+        int rows = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+             Stream<Student> students = studentRepository.streamAllOrderByRollNumber()) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+
+            Iterator<Student> iterator = students.iterator();
+            while (iterator.hasNext()) {
+                Student student = iterator.next();
+                writeStudent(generator, student, fields);
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                }
+                // Read-only rows; keep the persistence context from holding the whole roster
+                entityManager.detach(student);
+                rows++;
+            }
+
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+        return rows;
+    }
+
+    private static void writeStudent(JsonGenerator generator, Student student, List<String> fields) throws IOException {
+        generator.writeStartObject();
+        for (String field : fields) {
+            switch (field) {
+                case "id" -> generator.writeStringField(field, student.getId());
+                case "name" -> generator.writeStringField(field, student.getName());
+                case "email" -> generator.writeStringField(field, student.getEmail());
+                case "course" -> generator.writeStringField(field, student.getCourse());
+                case "rollNumber" -> generator.writeStringField(field, student.getRollNumber());
+                case "createdAt" -> writeNullable(generator, field, student.getCreatedAt());
+                case "hasPhoto" -> generator.writeBooleanField(field, student.hasPhoto());
+                case "photoUpdatedAt" -> writeNullable(generator, field, student.getPhotoUpdatedAt());
+                case "photoUrl" -> writeNullable(generator, field,
+                        student.hasPhoto() ? "/student/" + student.getId() + "/photo" : null);
+                case "qrCodePath" -> writeNullable(generator, field, student.getQrCodePath());
+                default -> throw new IllegalArgumentException("Unknown field: " + field);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeNullable(JsonGenerator generator, String field, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeStringField(field, value.toString());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import com.example.studentqr.model.StudentSummary;
+import com.example.studentqr.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Maps scanned or typed identifiers (student id or roll number) to a small student reference,
+// so the scan path needs no student query at all once warm. A miss costs one projection query
+// matching either column instead of findById followed by findByRollNumber.
+@Service
+public class StudentIdentifierResolver implements StudentChangeListener {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    // Two entries per student (id and roll number)
+    @Value("${student.resolver.max-entries:50000}")
+    private int maxEntries;
+
+    private final Map<String, StudentRef> refs = new ConcurrentHashMap<>();
+    // Bumped on every invalidation; a lookup that raced with one does not cache its result
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public record StudentRef(String id, String rollNumber, String name, String course) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        long start = System.currentTimeMillis();
+        List<StudentSummary> students = studentRepository.findAllSummaries();
+        int limit = Math.min(students.size(), maxEntries / 2);
+        for (int i = 0; i < limit; i++) {
+            StudentSummary student = students.get(i);
+            cache(new StudentRef(student.getId(), student.getRollNumber(), student.getName(), student.getCourse()));
+        }
+        System.out.println("🪪 Student identifier resolver warmed with " + limit + " students in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public Optional<StudentRef> resolve(String identifier) {
+        if (identifier == null || identifier.isBlank()) {
+            return Optional.empty();
+        }
+        String key = identifier.trim();
+        StudentRef ref = refs.get(key);
+        if (ref != null) {
+            hits.increment();
+            return Optional.of(ref);
+        }
+
+        misses.increment();
+        long seen = generation.get();
+        Optional<StudentRef> loaded = load(key);
+        if (loaded.isPresent() && generation.get() == seen) {
+            cache(loaded.get());
+        }
+        return loaded;
+    }
+
+    @Override
+    public void onStudentSaved(Student student) {
+        generation.incrementAndGet();
+        evict(student.getId());
+        refs.remove(student.getRollNumber());
+        // The saved row is current, so keep it warm instead of waiting for the next miss
+        cache(new StudentRef(student.getId(), student.getRollNumber(), student.getName(), student.getCourse()));
+    }
+
+    @Override
+    public void onStudentDeleted(String studentId) {
+        generation.incrementAndGet();
+        evict(studentId);
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", refs.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    // An id match wins over a roll number that happens to look like someone else's id
+    private Optional<StudentRef> load(String identifier) {
+        StudentRef byRoll = null;
+        for (StudentSummary student : studentRepository.findSummariesByIdOrRollNumber(identifier)) {
+            StudentRef ref = new StudentRef(student.getId(), student.getRollNumber(), student.getName(), student.getCourse());
+            if (identifier.equals(student.getId())) {
+                return Optional.of(ref);
+            }
+            byRoll = ref;
+        }
+        return Optional.ofNullable(byRoll);
+    }
+
+    private void cache(StudentRef ref) {
+        if (refs.size() + 2 > maxEntries) {
+            trim();
+        }
+        refs.put(ref.id(), ref);
+        if (ref.rollNumber() != null) {
+            refs.put(ref.rollNumber(), ref);
+        }
+    }
+
+    private void evict(String studentId) {
+        StudentRef old = refs.remove(studentId);
+        if (old != null && old.rollNumber() != null) {
+            refs.remove(old.rollNumber(), old);
+        }
+    }
+
+    // Frees a tenth of the capacity, always both entries of a student; hash order is as good as random here
+    private void trim() {
+        int target = maxEntries - Math.max(2, maxEntries / 10);
+        Iterator<StudentRef> iterator = refs.values().iterator();
+        while (refs.size() > target && iterator.hasNext()) {
+            StudentRef ref = iterator.next();
+            refs.remove(ref.id(), ref);
+            if (ref.rollNumber() != null) {
+                refs.remove(ref.rollNumber(), ref);
+            }
+            evictions.increment();
+        }
+    }
+}
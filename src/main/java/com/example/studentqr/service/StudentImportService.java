@@ -0,0 +1,327 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import com.example.studentqr.repository.StudentRepository;
+import com.example.studentqr.util.CsvReader;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Bulk student import from CSV (header: name,email,course,rollNumber[,photo]) with an optional
+// ZIP of photos, matched by the photo column or else by roll number ("CS001.jpg").
+// Rows are validated in one streaming pass against an in-memory set of roll numbers, then
+// inserted with JDBC batches, one transaction per chunk. A chunk that fails is retried row by
+// row so the error lands on the offending line.
+@Service
+public class StudentImportService {
+
+    private static final int MAX_FIELD_LENGTH = 255;
+    // Photos are read and written in small groups so a chunk never holds many images at once
+    private static final int PHOTO_BATCH = 16;
+
+    private static final String INSERT_STUDENT = "INSERT INTO students " +
+            "(id, name, email, course, roll_number, has_photo, photo_updated_at, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, FALSE, NULL, ?)";
+    private static final String INSERT_PHOTO = "INSERT INTO student_photos " +
+            "(student_id, data, content_type, size_bytes, updated_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String MARK_PHOTO = "UPDATE students SET has_photo = TRUE, photo_updated_at = ? WHERE id = ?";
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PhotoService photoService;
+
+    @Autowired
+    private PhotoRenditionService photoRenditionService;
+
+    @Autowired
+    private QRGenerationPipeline qrGenerationPipeline;
+
+    @Autowired
+    private List<StudentChangeListener> changeListeners;
+
+    @Value("${student.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${student.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // photosZip may be null
+    public ImportReport importCsv(InputStream csv, ZipFile photosZip) throws IOException {
+        ImportReport report = new ImportReport();
+        long start = System.nanoTime();
+
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8)));
+        List<String> header = reader.readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        Map<String, Integer> columns = mapColumns(header);
+        Map<String, ZipEntry> photos = photosZip != null ? indexPhotos(photosZip) : Map.of();
+
+        Set<String> rollNumbers = new HashSet<>(studentRepository.findAllRollNumbers());
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        List<String> record;
+        while ((record = reader.readRecord()) != null) {
+            report.totalRows++;
+            ImportRow row = validate(reader.getRecordLine(), record, columns, photos, rollNumbers, report);
+            if (row != null) {
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    insertChunk(chunk, photosZip, report);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, photosZip, report);
+        }
+
+        report.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        report.rowsPerSecond = report.elapsedMs > 0 ? report.totalRows * 1000.0 / report.elapsedMs : report.totalRows;
+        System.out.println("📥 Imported " + report.inserted + " of " + report.totalRows + " students in "
+                + report.elapsedMs + " ms (" + Math.round(report.rowsPerSecond) + " rows/s)");
+        return report;
+    }
+
+    private static Map<String, Integer> mapColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String key = header.get(i).toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+            switch (key) {
+                case "name", "studentname" -> columns.putIfAbsent("name", i);
+                case "email", "emailaddress" -> columns.putIfAbsent("email", i);
+                case "course" -> columns.putIfAbsent("course", i);
+                case "rollnumber", "rollno", "roll" -> columns.putIfAbsent("rollNumber", i);
+                case "photo", "photofile" -> columns.putIfAbsent("photo", i);
+                default -> {
+                }
+            }
+        }
+        for (String required : List.of("name", "email", "course", "rollNumber")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing the " + required + " column");
+            }
+        }
+        return columns;
+    }
+
+    // Entry by lowercase file name, with and without extension; directories inside the ZIP are ignored
+    private static Map<String, ZipEntry> indexPhotos(ZipFile zip) {
+        Map<String, ZipEntry> photos = new HashMap<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+            if (name.isEmpty() || name.startsWith(".")) {
+                continue;
+            }
+            photos.putIfAbsent(name, entry);
+            int dot = name.lastIndexOf('.');
+            if (dot > 0) {
+                photos.putIfAbsent(name.substring(0, dot), entry);
+            }
+        }
+        return photos;
+    }
+
+    private ImportRow validate(int line, List<String> record, Map<String, Integer> columns,
+                               Map<String, ZipEntry> photos, Set<String> rollNumbers, ImportReport report) {
+        String name = field(record, columns.get("name"));
+        String email = field(record, columns.get("email"));
+        String course = field(record, columns.get("course"));
+        String rollNumber = field(record, columns.get("rollNumber"));
+        String photo = field(record, columns.get("photo"));
+
+        String error = null;
+        if (name.isEmpty() || email.isEmpty() || course.isEmpty() || rollNumber.isEmpty()) {
+            error = "Name, email, course and roll number are required";
+        } else if (name.length() > MAX_FIELD_LENGTH || email.length() > MAX_FIELD_LENGTH
+                || course.length() > MAX_FIELD_LENGTH || rollNumber.length() > MAX_FIELD_LENGTH) {
+            error = "Values must be at most " + MAX_FIELD_LENGTH + " characters";
+        } else if (!email.matches("[^@\\s]+@[^@\\s]+\\.[^@\\s]+")) {
+            error = "Invalid email: " + email;
+        } else if (!photo.isEmpty() && !photos.containsKey(photo.toLowerCase(Locale.ROOT))) {
+            error = "Photo " + photo + " is not in the ZIP file";
+        } else if (!rollNumbers.add(rollNumber)) {
+            error = "Roll number " + rollNumber + " already exists";
+        }
+        if (error != null) {
+            report.addError(line, rollNumber, error, maxReportedErrors);
+            return null;
+        }
+
+        ZipEntry photoEntry = photos.get((photo.isEmpty() ? rollNumber : photo).toLowerCase(Locale.ROOT));
+        return new ImportRow(line, UUID.randomUUID().toString(), name, email, course, rollNumber, photoEntry);
+    }
+
+    private static String field(List<String> record, Integer index) {
+        return index != null && index < record.size() ? record.get(index).trim() : "";
+    }
+
+    private void insertChunk(List<ImportRow> rows, ZipFile photosZip, ImportReport report) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Map<String, String> photoErrors = new HashMap<>();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                photoErrors.clear();
+                Timestamp created = Timestamp.valueOf(now);
+                jdbcTemplate.batchUpdate(INSERT_STUDENT, rows, rows.size(), (ps, row) -> {
+                    ps.setString(1, row.id);
+                    ps.setString(2, row.name);
+                    ps.setString(3, row.email);
+                    ps.setString(4, row.course);
+                    ps.setString(5, row.rollNumber);
+                    ps.setTimestamp(6, created);
+                });
+                insertPhotos(rows, photosZip, created, photoErrors);
+            });
+        } catch (DataAccessException e) {
+            if (rows.size() > 1) {
+                for (ImportRow row : rows) {
+                    insertChunk(List.of(row), photosZip, report);
+                }
+            } else {
+                ImportRow row = rows.get(0);
+                report.addError(row.line, row.rollNumber, "Insert failed: " + rootMessage(e), maxReportedErrors);
+            }
+            return;
+        }
+
+        report.inserted += rows.size();
+        for (ImportRow row : rows) {
+            String photoError = photoErrors.get(row.id);
+            if (photoError != null) {
+                report.addError(row.line, row.rollNumber, "Imported without photo: " + photoError, maxReportedErrors);
+            }
+            boolean hasPhoto = row.photo != null && photoError == null;
+            if (hasPhoto) {
+                report.photos++;
+                photoRenditionService.enqueue(row.id);
+            }
+
+            Student student = new Student(row.id, row.name, row.email, row.course, row.rollNumber);
+            student.setCreatedAt(now);
+            student.setPhotoAvailable(hasPhoto);
+            student.setPhotoUpdatedAt(hasPhoto ? now : null);
+            changeListeners.forEach(listener -> listener.onStudentSaved(student));
+            qrGenerationPipeline.enqueue(row.id);
+        }
+    }
+
+    // Photos that cannot be read are skipped and reported; the student is still imported
+    private void insertPhotos(List<ImportRow> rows, ZipFile photosZip, Timestamp updatedAt,
+                              Map<String, String> photoErrors) {
+        List<ImportRow> group = new ArrayList<>(PHOTO_BATCH);
+        List<PhotoService.PhotoUpload> uploads = new ArrayList<>(PHOTO_BATCH);
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow row = rows.get(i);
+            if (row.photo != null) {
+                try (InputStream in = photosZip.getInputStream(row.photo)) {
+                    uploads.add(photoService.readUpload(in));
+                    group.add(row);
+                } catch (IOException | RuntimeException e) {
+                    photoErrors.put(row.id, e.getMessage());
+                }
+            }
+            if (group.size() == PHOTO_BATCH || (i == rows.size() - 1 && !group.isEmpty())) {
+                List<Object[]> photoArgs = new ArrayList<>(group.size());
+                List<Object[]> markArgs = new ArrayList<>(group.size());
+                for (int j = 0; j < group.size(); j++) {
+                    PhotoService.PhotoUpload upload = uploads.get(j);
+                    photoArgs.add(new Object[]{group.get(j).id, upload.data(), upload.contentType(),
+                            upload.data().length, updatedAt});
+                    markArgs.add(new Object[]{updatedAt, group.get(j).id});
+                }
+                jdbcTemplate.batchUpdate(INSERT_PHOTO, photoArgs);
+                jdbcTemplate.batchUpdate(MARK_PHOTO, markArgs);
+                group.clear();
+                uploads.clear();
+            }
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        String message = root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+        int newline = message.indexOf('\n');
+        return newline > 0 ? message.substring(0, newline) : message;
+    }
+
+    private record ImportRow(int line, String id, String name, String email, String course,
+                             String rollNumber, ZipEntry photo) {
+    }
+
+    @Getter
+    public static class ImportReport {
+        private int totalRows;
+        private int inserted;
+        private int photos;
+        private long elapsedMs;
+        private double rowsPerSecond;
+        private final List<RowError> errors = new ArrayList<>();
+        private int errorCount;
+
+        void addError(int line, String rollNumber, String message, int maxReported) {
+            errorCount++;
+            if (errors.size() < maxReported) {
+                errors.add(new RowError(line, rollNumber, message));
+            }
+        }
+
+        public int getFailed() {
+            return totalRows - inserted;
+        }
+    }
+
+    @Getter
+    public static class RowError {
+        private final int line;
+        private final String rollNumber;
+        private final String message;
+
+        RowError(int line, String rollNumber, String message) {
+            this.line = line;
+            this.rollNumber = rollNumber;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import com.example.studentqr.model.StudentSummary;
+import com.example.studentqr.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Prefix trie over roll numbers and normalized names for the attendance typeahead.
+// Every node keeps the first N students below it in key order, so a lookup is one walk down
+// the query's characters. Each word of a name is also a key, so "smi" finds "Alice Smith".
+@Service
+public class StudentLookupTrie implements StudentChangeListener {
+
+    // Keys continue below this depth in one node's posting list; longer queries filter that list
+    private static final int MAX_DEPTH = 8;
+
+    private static final Comparator<Posting> KEY_ORDER = Comparator.comparing(Posting::key)
+            .thenComparing(posting -> posting.student().id());
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Value("${attendance.lookup.max-results:8}")
+    private int maxResults;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node();
+    private Map<String, List<Posting>> postingsById = new HashMap<>();
+
+    // Bumped on every roster change; lookup responses use it as their ETag
+    private final AtomicLong version = new AtomicLong();
+
+    private boolean rebuilding;
+    private final List<Object> pendingChanges = new ArrayList<>();
+
+    public record Match(String id, String rollNumber, String name, String course) {
+    }
+
+    private record Posting(String key, Match student) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<StudentSummary> students = studentRepository.findAllSummaries();
+
+        lock.writeLock().lock();
+        try {
+            root = new Node();
+            postingsById = new HashMap<>();
+            for (StudentSummary student : students) {
+                put(new Match(student.getId(), student.getRollNumber(), student.getName(), student.getCourse()));
+            }
+            for (Object change : pendingChanges) {
+                if (change instanceof Match match) {
+                    put(match);
+                } else {
+                    remove((String) change);
+                }
+            }
+            pendingChanges.clear();
+            rebuilding = false;
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("🔤 Student lookup trie built: " + students.size() + " students");
+    }
+
+    @Override
+    public void onStudentSaved(Student student) {
+        Match match = new Match(student.getId(), student.getRollNumber(), student.getName(), student.getCourse());
+        lock.writeLock().lock();
+        try {
+            put(match);
+            if (rebuilding) {
+                pendingChanges.add(match);
+            }
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onStudentDeleted(String studentId) {
+        lock.writeLock().lock();
+        try {
+            remove(studentId);
+            if (rebuilding) {
+                pendingChanges.add(studentId);
+            }
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    // Students whose roll number or a name word starts with the query, at most `limit` of them
+    public List<Match> lookup(String query, int limit) {
+        String key = normalize(query);
+        int max = limit <= 0 ? maxResults : Math.min(limit, maxResults);
+        if (key.isEmpty() || max <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Match> matches = new ArrayList<>(max);
+            Set<String> seen = new HashSet<>();
+            collect(key, max, matches, seen);
+            // Roll numbers are keyed without separators, so "CS 2024" also finds "CS-2024-001"
+            String compact = key.replace(" ", "");
+            if (!compact.equals(key)) {
+                collect(compact, max, matches, seen);
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(String key, int max, List<Match> matches, Set<String> seen) {
+        Node node = root;
+        for (int i = 0; i < Math.min(key.length(), MAX_DEPTH) && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return;
+        }
+        List<Posting> candidates = key.length() <= MAX_DEPTH ? Arrays.asList(node.top) : node.postings;
+        for (Posting posting : candidates) {
+            if (matches.size() == max) {
+                return;
+            }
+            if (posting.key().startsWith(key) && seen.add(posting.student().id())) {
+                matches.add(posting.student());
+            }
+        }
+    }
+
+    // Lowercase, accents stripped, anything but letters and digits collapsed to one space
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && out.length() > 0) {
+                    out.append(' ');
+                }
+                out.append(Character.toLowerCase(c));
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return out.toString();
+    }
+
+    // The roll number without separators, the full name, and the name from each later word on
+    private static Set<String> keysFor(Match student) {
+        Set<String> keys = new LinkedHashSet<>();
+        String roll = normalize(student.rollNumber()).replace(" ", "");
+        if (!roll.isEmpty()) {
+            keys.add(roll);
+        }
+        String name = normalize(student.name());
+        if (!name.isEmpty()) {
+            keys.add(name);
+            for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+                keys.add(name.substring(i + 1));
+            }
+        }
+        return keys;
+    }
+
+    private void put(Match student) {
+        remove(student.id());
+        List<Posting> postings = new ArrayList<>();
+        for (String key : keysFor(student)) {
+            Posting posting = new Posting(key, student);
+            insert(posting);
+            postings.add(posting);
+        }
+        postingsById.put(student.id(), postings);
+    }
+
+    private void remove(String studentId) {
+        List<Posting> postings = postingsById.remove(studentId);
+        if (postings != null) {
+            postings.forEach(this::delete);
+        }
+    }
+
+    private void insert(Posting posting) {
+        List<Node> path = path(posting.key(), true);
+        Node last = path.get(path.size() - 1);
+        int index = Collections.binarySearch(last.postings, posting, KEY_ORDER);
+        last.postings.add(index < 0 ? -index - 1 : index, posting);
+        refreshTops(path);
+    }
+
+    private void delete(Posting posting) {
+        List<Node> path = path(posting.key(), false);
+        if (path.size() != Math.min(posting.key().length(), MAX_DEPTH) + 1) {
+            return;
+        }
+        path.get(path.size() - 1).postings.remove(posting);
+
+        // Drop nodes that no longer lead anywhere
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (!node.postings.isEmpty() || node.children.length > 0) {
+                break;
+            }
+            path.get(i - 1).removeChild(posting.key().charAt(i - 1));
+            path.remove(i);
+        }
+        refreshTops(path);
+    }
+
+    // Root first; stops early when a node is missing and create is false
+    private List<Node> path(String key, boolean create) {
+        List<Node> path = new ArrayList<>(MAX_DEPTH + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < Math.min(key.length(), MAX_DEPTH); i++) {
+            node = create ? node.childOrCreate(key.charAt(i)) : node.child(key.charAt(i));
+            if (node == null) {
+                break;
+            }
+            path.add(node);
+        }
+        return path;
+    }
+
+    // A node's own postings sort before everything in its children, and children are kept in
+    // label order, so concatenating them is already key order
+    private void refreshTops(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Posting> top = new ArrayList<>(maxResults);
+            Set<String> seen = new HashSet<>();
+            collectTop(node.postings, top, seen);
+            for (Node child : node.children) {
+                collectTop(Arrays.asList(child.top), top, seen);
+            }
+            node.top = top.toArray(new Posting[0]);
+        }
+    }
+
+    private void collectTop(List<Posting> candidates, List<Posting> top, Set<String> seen) {
+        for (Posting posting : candidates) {
+            if (top.size() == maxResults) {
+                return;
+            }
+            if (seen.add(posting.student().id())) {
+                top.add(posting);
+            }
+        }
+    }
+
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        // Keys that end here, or run past MAX_DEPTH when this node is that deep; in key order
+        private final List<Posting> postings = new ArrayList<>(1);
+        private Posting[] top = new Posting[0];
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index < 0 ? null : children[index];
+        }
+
+        Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = c;
+            newChildren[insertAt] = new Node();
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insertAt];
+        }
+
+        void removeChild(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            if (index < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import com.example.studentqr.model.StudentSummary;
+import com.example.studentqr.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+// In-memory n-gram index over name, email, course and roll number.
+// A query is answered by intersecting the posting lists of its trigrams (its bigram when it is two
+// characters long); each candidate is then verified with a real substring check, so results are
+// exact. Single-character queries scan the in-memory documents instead of the database.
+@Service
+public class StudentSearchIndex implements StudentChangeListener {
+
+    // Separates fields in a document so no trigram spans two of them
+    private static final char FIELD_SEPARATOR = '\u0001';
+    private static final char BIGRAM_PAD = '\uFFFF';
+    private static final int COMPACT_MIN_DEAD = 1024;
+    // Stop intersecting posting lists once this few candidates are left; verification is cheaper
+    private static final int INTERSECT_UNTIL = 64;
+
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::score).reversed()
+            .thenComparing(match -> match.doc.name)
+            .thenComparing(match -> match.doc.id);
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Value("${student.search.max-results:200}")
+    private int maxResults;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    private volatile boolean ready;
+
+    // Changes that arrive while a rebuild is reading the database, replayed on top of it
+    private boolean rebuilding;
+    private final List<Object> pendingChanges = new ArrayList<>();
+    private long lastRebuildMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Doc> docs = new ArrayList<>();
+        for (StudentSummary student : studentRepository.findAllSummaries()) {
+            docs.add(Doc.of(student.getId(), student.getName(), student.getEmail(),
+                    student.getCourse(), student.getRollNumber()));
+        }
+        State fresh = State.build(docs);
+
+        lock.writeLock().lock();
+        try {
+            state = fresh;
+            for (Object change : pendingChanges) {
+                if (change instanceof Doc doc) {
+                    state.put(doc);
+                } else {
+                    state.remove((String) change);
+                }
+            }
+            pendingChanges.clear();
+            rebuilding = false;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastRebuildMillis = System.currentTimeMillis() - start;
+        System.out.println("🔎 Student search index built: " + docs.size() + " students in " + lastRebuildMillis + " ms");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void onStudentSaved(Student student) {
+        Doc doc = Doc.of(student.getId(), student.getName(), student.getEmail(),
+                student.getCourse(), student.getRollNumber());
+        lock.writeLock().lock();
+        try {
+            state.put(doc);
+            if (rebuilding) {
+                pendingChanges.add(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onStudentDeleted(String studentId) {
+        lock.writeLock().lock();
+        try {
+            state.remove(studentId);
+            if (rebuilding) {
+                pendingChanges.add(studentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ids of matching students, best match first, at most student.search.max-results
+    public List<String> search(String query) {
+        String q = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (q.isEmpty()) {
+            return List.of();
+        }
+        String wordStart = " " + q;
+
+        lock.readLock().lock();
+        try {
+            // Min-heap of the best maxResults matches, so broad queries never sort every hit
+            PriorityQueue<Match> best = new PriorityQueue<>(RANKING.reversed());
+            if (q.length() == 1) {
+                for (int ordinal = 0; ordinal < state.docCount; ordinal++) {
+                    collect(state.docs[ordinal], q, wordStart, best);
+                }
+            } else {
+                int[] candidates = state.candidates(q);
+                for (int ordinal : candidates) {
+                    collect(state.docs[ordinal], q, wordStart, best);
+                }
+            }
+
+            Match[] ranked = best.toArray(new Match[0]);
+            Arrays.sort(ranked, RANKING);
+            List<String> ids = new ArrayList<>(ranked.length);
+            for (Match match : ranked) {
+                ids.add(match.doc.id);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("ready", ready);
+            stats.put("students", state.ordinalById.size());
+            stats.put("deletedSlots", state.deadCount);
+            stats.put("trigrams", state.postings.size());
+            stats.put("lastRebuildMs", lastRebuildMillis);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    private void collect(Doc doc, String q, String wordStart, PriorityQueue<Match> best) {
+        if (doc == null) {
+            return;
+        }
+        int score = score(doc, q, wordStart);
+        if (score == 0) {
+            return;
+        }
+        Match match = new Match(doc, score);
+        if (best.size() < maxResults) {
+            best.add(match);
+        } else if (maxResults > 0 && RANKING.compare(match, best.peek()) < 0) {
+            best.poll();
+            best.add(match);
+        }
+    }
+
+    // Exact and prefix matches on roll number and name rank above matches elsewhere
+    static int score(Doc doc, String q, String wordStart) {
+        int score = 0;
+        if (doc.roll.equals(q)) {
+            score = Math.max(score, 1000);
+        } else if (doc.roll.startsWith(q)) {
+            score = Math.max(score, 500);
+        } else if (doc.roll.contains(q)) {
+            score = Math.max(score, 200);
+        }
+        if (doc.name.startsWith(q)) {
+            score = Math.max(score, 400);
+        } else if (doc.name.contains(wordStart)) {
+            score = Math.max(score, 300);
+        } else if (doc.name.contains(q)) {
+            score = Math.max(score, 150);
+        }
+        if (doc.email.startsWith(q)) {
+            score = Math.max(score, 100);
+        } else if (doc.email.contains(q)) {
+            score = Math.max(score, 60);
+        }
+        if (doc.course.equals(q)) {
+            score = Math.max(score, 50);
+        } else if (doc.course.contains(q)) {
+            score = Math.max(score, 30);
+        }
+        return score;
+    }
+
+    private static long trigram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    // Two-character keys are padded with a character that never occurs in text
+    private static long bigram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | BIGRAM_PAD;
+    }
+
+    // Adds every distinct bigram and trigram of the document; ordinals only grow, so a repeated
+    // key within one document is caught by looking at the last posting
+    private static void indexDoc(Map<Long, Postings> postings, Doc doc, int ordinal) {
+        String text = doc.text;
+        for (int i = 0; i + 2 <= text.length(); i++) {
+            if (text.charAt(i) == FIELD_SEPARATOR || text.charAt(i + 1) == FIELD_SEPARATOR) {
+                continue;
+            }
+            addPosting(postings, bigram(text, i), ordinal);
+            if (i + 3 <= text.length() && text.charAt(i + 2) != FIELD_SEPARATOR) {
+                addPosting(postings, trigram(text, i), ordinal);
+            }
+        }
+    }
+
+    private static void addPosting(Map<Long, Postings> postings, long key, int ordinal) {
+        Postings list = postings.computeIfAbsent(key, k -> new Postings());
+        if (list.size == 0 || list.ordinals[list.size - 1] != ordinal) {
+            list.add(ordinal);
+        }
+    }
+
+    // Intersection of two ascending ordinal lists
+    private static int[] intersect(int[] candidates, Postings list) {
+        int[] out = new int[Math.min(candidates.length, list.size)];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < candidates.length && j < list.size) {
+            int a = candidates[i];
+            int b = list.ordinals[j];
+            if (a == b) {
+                out[n++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    record Doc(String id, String name, String email, String course, String roll, String text) {
+
+        static Doc of(String id, String name, String email, String course, String roll) {
+            String n = lower(name);
+            String e = lower(email);
+            String c = lower(course);
+            String r = lower(roll);
+            return new Doc(id, n, e, c, r, n + FIELD_SEPARATOR + e + FIELD_SEPARATOR + c + FIELD_SEPARATOR + r);
+        }
+
+        private static String lower(String value) {
+            return value == null ? "" : value.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private record Match(Doc doc, int score) {
+    }
+
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        void addAll(Postings other) {
+            if (size + other.size > ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, Math.max(ordinals.length * 2, size + other.size));
+            }
+            System.arraycopy(other.ordinals, 0, ordinals, size, other.size);
+            size += other.size;
+        }
+    }
+
+    // Documents by ordinal (null once replaced or deleted) plus trigram postings.
+    // Updates append a new ordinal; dead ordinals are dropped by compaction.
+    private static final class State {
+        private Doc[] docs = new Doc[1024];
+        private int docCount;
+        private int deadCount;
+        private final Map<String, Integer> ordinalById = new HashMap<>();
+        private Map<Long, Postings> postings = new HashMap<>();
+
+        // Postings built per chunk on all cores, then concatenated in chunk order so ordinals stay sorted
+        static State build(List<Doc> docs) {
+            State state = new State();
+            state.docs = docs.toArray(new Doc[Math.max(1024, docs.size())]);
+            state.docCount = docs.size();
+            for (int i = 0; i < docs.size(); i++) {
+                state.ordinalById.put(docs.get(i).id, i);
+            }
+
+            int chunks = Math.max(1, Math.min(docs.size() / 1024, Runtime.getRuntime().availableProcessors() * 4));
+            int chunkSize = (docs.size() + chunks - 1) / Math.max(1, chunks);
+            List<Map<Long, Postings>> partials = IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> {
+                        Map<Long, Postings> partial = new HashMap<>();
+                        int end = Math.min(docs.size(), (chunk + 1) * chunkSize);
+                        for (int ordinal = chunk * chunkSize; ordinal < end; ordinal++) {
+                            indexDoc(partial, docs.get(ordinal), ordinal);
+                        }
+                        return partial;
+                    })
+                    .toList();
+
+            for (Map<Long, Postings> partial : partials) {
+                for (Map.Entry<Long, Postings> entry : partial.entrySet()) {
+                    Postings target = state.postings.get(entry.getKey());
+                    if (target == null) {
+                        state.postings.put(entry.getKey(), entry.getValue());
+                    } else {
+                        target.addAll(entry.getValue());
+                    }
+                }
+            }
+            return state;
+        }
+
+        void put(Doc doc) {
+            remove(doc.id);
+            if (docCount == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+            int ordinal = docCount++;
+            docs[ordinal] = doc;
+            ordinalById.put(doc.id, ordinal);
+            indexDoc(postings, doc, ordinal);
+        }
+
+        void remove(String id) {
+            Integer ordinal = ordinalById.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            docs[ordinal] = null;
+            deadCount++;
+            if (deadCount >= COMPACT_MIN_DEAD && deadCount * 2 > docCount) {
+                compact();
+            }
+        }
+
+        // Ordinals that contain every gram of the query (trigrams, or the bigram of a 2-char query),
+        // intersecting from the shortest list up. Candidates still need a substring check.
+        int[] candidates(String q) {
+            List<Postings> lists = new ArrayList<>();
+            Set<Long> seen = new HashSet<>();
+            if (q.length() == 2) {
+                seen.add(bigram(q, 0));
+            }
+            for (int i = 0; i + 3 <= q.length(); i++) {
+                seen.add(trigram(q, i));
+            }
+            for (long key : seen) {
+                Postings list = postings.get(key);
+                if (list == null) {
+                    return new int[0];
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            Postings shortest = lists.get(0);
+            int[] candidates = Arrays.copyOf(shortest.ordinals, shortest.size);
+            for (int i = 1; i < lists.size() && candidates.length > INTERSECT_UNTIL; i++) {
+                candidates = intersect(candidates, lists.get(i));
+            }
+            return candidates;
+        }
+
+        private void compact() {
+            List<Doc> live = new ArrayList<>(ordinalById.size());
+            for (int i = 0; i < docCount; i++) {
+                if (docs[i] != null) {
+                    live.add(docs[i]);
+                }
+            }
+            State compacted = build(live);
+            docs = compacted.docs;
+            docCount = compacted.docCount;
+            deadCount = 0;
+            ordinalById.clear();
+            ordinalById.putAll(compacted.ordinalById);
+            postings = compacted.postings;
+        }
+    }
+}
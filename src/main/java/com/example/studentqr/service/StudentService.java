@@ -1,10 +1,17 @@
 package com.example.studentqr.service;
 
 import com.example.studentqr.model.Student;
+import com.example.studentqr.model.StudentPage;
+import com.example.studentqr.model.StudentSummary;
+import com.example.studentqr.repository.StudentPhotoRenditionRepository;
+import com.example.studentqr.repository.StudentPhotoRepository;
 import com.example.studentqr.repository.StudentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @Service
@@ -13,12 +20,50 @@ public class StudentService {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private StudentPhotoRepository studentPhotoRepository;
+
+    @Autowired
+    private StudentPhotoRenditionRepository studentPhotoRenditionRepository;
+
+    @Autowired
+    private List<StudentChangeListener> changeListeners;
+
+    @Autowired
+    private StudentSearchIndex studentSearchIndex;
+
+    @Autowired
+    private RosterVersion rosterVersion;
+
+    @Value("${student.list.page-size:24}")
+    private int defaultPageSize;
+
+    @Value("${student.list.max-page-size:200}")
+    private int maxPageSize;
+
+    // rollNumber or name
+    @Value("${student.list.sort:rollNumber}")
+    private String listSort;
+
     // Save or update student
     public Student saveStudent(Student student) {
         if (student.getId() == null || student.getId().isEmpty()) {
             student.setId(UUID.randomUUID().toString());
         }
-        return studentRepository.save(student);
+        Student saved = studentRepository.save(student);
+        changeListeners.forEach(listener -> listener.onStudentSaved(saved));
+        return saved;
+    }
+
+    // Point a student at a QR store key without rewriting the whole row
+    public void updateQrCodePath(String id, String qrCodePath) {
+        studentRepository.updateQrCodePath(id, qrCodePath);
+        rosterVersion.bump();
+    }
+
+    // Uninitialized proxy for use as an association; no query until a field other than the id is read
+    public Student getStudentReference(String id) {
+        return studentRepository.getReferenceById(id);
     }
 
     // Get all students
@@ -26,6 +71,71 @@ public class StudentService {
         return studentRepository.findAll();
     }
 
+    // One keyset page of the directory. `after`/`before` are cursors from a previous page; neither means the first page.
+    // Each page is a single indexed range query, so its cost does not grow with enrolment.
+    public StudentPage getStudentPage(String after, String before, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        Limit limit = Limit.of(pageSize + 1);
+        boolean byName = "name".equalsIgnoreCase(listSort);
+        boolean backwards = after == null && before != null;
+        String[] cursor = decodeCursor(backwards ? before : after);
+
+        List<StudentSummary> rows;
+        if (backwards && cursor != null) {
+            rows = byName
+                    ? studentRepository.findSummariesBeforeName(cursor[0], cursor[1], limit)
+                    : studentRepository.findSummariesBeforeRollNumber(cursor[0], limit);
+        } else {
+            backwards = false;
+            String value = cursor != null ? cursor[0] : "";
+            String id = cursor != null ? cursor[1] : "";
+            rows = byName
+                    ? studentRepository.findSummariesAfterName(value, id, limit)
+                    : studentRepository.findSummariesAfterRollNumber(value, limit);
+        }
+
+        // The extra row only tells us whether there is another page in the direction we read
+        boolean more = rows.size() > pageSize;
+        rows = new ArrayList<>(more ? rows.subList(0, pageSize) : rows);
+        if (backwards) {
+            Collections.reverse(rows);
+        }
+        if (rows.isEmpty()) {
+            return new StudentPage(rows, null, null, pageSize);
+        }
+
+        String first = encodeCursor(rows.get(0), byName);
+        String last = encodeCursor(rows.get(rows.size() - 1), byName);
+        if (backwards) {
+            return new StudentPage(rows, more ? first : null, last, pageSize);
+        }
+        return new StudentPage(rows, cursor != null ? first : null, more ? last : null, pageSize);
+    }
+
+    private static String encodeCursor(StudentSummary student, boolean byName) {
+        String value = (byName ? student.getName() : student.getRollNumber()) + '\u0000' + student.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // {sort value, id}, or null for a missing or malformed cursor (which then means the first page)
+    private static String[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf('\u0000');
+            return separator < 0 ? null : new String[]{value.substring(0, separator), value.substring(separator + 1)};
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Get students enrolled in a course
+    public List<Student> getStudentsByCourse(String course) {
+        return studentRepository.findByCourse(course);
+    }
+
     // Get student by ID
     public Optional<Student> getStudentById(String id) {
         return studentRepository.findById(id);
@@ -39,18 +149,34 @@ public class StudentService {
     // Delete student by ID
     public boolean deleteStudent(String id) {
         if (studentRepository.existsById(id)) {
+            if (studentPhotoRepository.existsById(id)) {
+                studentPhotoRepository.deleteById(id);
+            }
+            studentPhotoRenditionRepository.deleteByStudentId(id);
             studentRepository.deleteById(id);
+            changeListeners.forEach(listener -> listener.onStudentDeleted(id));
             return true;
         }
         return false;
     }
 
-    // Search students
+    // Search students: ranked substring matches from the in-memory index
     public List<Student> searchStudents(String keyword) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return getAllStudents();
         }
+        if (!studentSearchIndex.isReady()) {
+            return scanStudents(keyword);
+        }
+
+        List<String> ids = studentSearchIndex.search(keyword);
+        Map<String, Student> byId = new HashMap<>();
+        studentRepository.findAllById(ids).forEach(student -> byId.put(student.getId(), student));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
 
+    // Used until the index has been built at startup
+    private List<Student> scanStudents(String keyword) {
         String searchTerm = keyword.toLowerCase();
         return getAllStudents().stream()
                 .filter(student ->
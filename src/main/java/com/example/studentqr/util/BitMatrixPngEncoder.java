@@ -0,0 +1,194 @@
+package com.example.studentqr.util;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Writes a BitMatrix straight to a 1-bit grayscale PNG without BufferedImage/ImageIO.
+// Deflaters and buffers are pooled, so concurrent callers never share a workspace.
+public final class BitMatrixPngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+
+    private static final int MAX_POOLED = Runtime.getRuntime().availableProcessors() * 2;
+    // Workspaces that grew past this are not returned to the pool
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+
+    private static final ConcurrentLinkedQueue<Workspace> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    private BitMatrixPngEncoder() {
+    }
+
+    public static byte[] encode(BitMatrix matrix) {
+        Workspace ws = acquire();
+        try {
+            ws.write(matrix);
+            return Arrays.copyOf(ws.out, ws.pos);
+        } finally {
+            release(ws);
+        }
+    }
+
+    public static void writeTo(BitMatrix matrix, OutputStream stream) throws IOException {
+        Workspace ws = acquire();
+        try {
+            ws.write(matrix);
+            stream.write(ws.out, 0, ws.pos);
+        } finally {
+            release(ws);
+        }
+    }
+
+    private static Workspace acquire() {
+        Workspace ws = POOL.poll();
+        if (ws == null) {
+            return new Workspace();
+        }
+        POOLED.decrementAndGet();
+        return ws;
+    }
+
+    private static void release(Workspace ws) {
+        ws.deflater.reset();
+        if (ws.out.length <= MAX_RETAINED_BUFFER && POOLED.get() < MAX_POOLED) {
+            POOLED.incrementAndGet();
+            POOL.offer(ws);
+        } else {
+            ws.deflater.end();
+        }
+    }
+
+    private static final class Workspace {
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        private final CRC32 crc = new CRC32();
+        private BitArray bits = new BitArray(1);
+        private int[] lastWords = new int[1];
+        private byte[] row = new byte[64];
+        private byte[] out = new byte[4096];
+        private int pos;
+
+        void write(BitMatrix matrix) {
+            int width = matrix.getWidth();
+            int height = matrix.getHeight();
+            int stride = (width + 7) >> 3;
+
+            pos = 0;
+            put(SIGNATURE, 0, SIGNATURE.length);
+
+            // IHDR: width, height, bit depth 1, color type 0 (grayscale), deflate, no filter, no interlace
+            int ihdrStart = beginChunk(IHDR);
+            putInt(width);
+            putInt(height);
+            ensure(5);
+            out[pos++] = 1;
+            out[pos++] = 0;
+            out[pos++] = 0;
+            out[pos++] = 0;
+            out[pos++] = 0;
+            endChunk(ihdrStart);
+
+            if (row.length < stride + 1) {
+                row = new byte[stride + 1];
+            }
+            if (bits.getSize() != width) {
+                bits = new BitArray(width);
+            }
+
+            int words = (width + 31) >> 5;
+            if (lastWords.length < words) {
+                lastWords = new int[words];
+            }
+
+            int idatStart = beginChunk(IDAT);
+            for (int y = 0; y < height; y++) {
+                int[] current = matrix.getRow(y, bits).getBitArray();
+                // Scaled QR modules repeat rows, so only repack when the row changed
+                if (y == 0 || !Arrays.equals(current, 0, words, lastWords, 0, words)) {
+                    packRow(current, width, stride);
+                    System.arraycopy(current, 0, lastWords, 0, words);
+                }
+                deflater.setInput(row, 0, stride + 1);
+                while (!deflater.needsInput()) {
+                    drainDeflater();
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                drainDeflater();
+            }
+            endChunk(idatStart);
+
+            endChunk(beginChunk(IEND));
+        }
+
+        private void packRow(int[] words, int width, int stride) {
+            // Filter type 0 (None); PNG gray 1 is white and a set matrix bit is black
+            row[0] = 0;
+            Arrays.fill(row, 1, stride + 1, (byte) 0xFF);
+            for (int x = 0; x < width; x++) {
+                if (((words[x >> 5] >>> (x & 31)) & 1) != 0) {
+                    row[1 + (x >> 3)] &= (byte) ~(0x80 >>> (x & 7));
+                }
+            }
+            // Clear padding bits past the last pixel
+            int tail = width & 7;
+            if (tail != 0) {
+                row[stride] &= (byte) (0xFF << (8 - tail));
+            }
+        }
+
+        private void drainDeflater() {
+            ensure(8192);
+            pos += deflater.deflate(out, pos, out.length - pos);
+        }
+
+        private int beginChunk(byte[] type) {
+            int start = pos;
+            putInt(0);
+            put(type, 0, 4);
+            return start;
+        }
+
+        private void endChunk(int start) {
+            int length = pos - start - 8;
+            out[start] = (byte) (length >>> 24);
+            out[start + 1] = (byte) (length >>> 16);
+            out[start + 2] = (byte) (length >>> 8);
+            out[start + 3] = (byte) length;
+            crc.reset();
+            crc.update(out, start + 4, length + 4);
+            putInt((int) crc.getValue());
+        }
+
+        private void putInt(int value) {
+            ensure(4);
+            out[pos++] = (byte) (value >>> 24);
+            out[pos++] = (byte) (value >>> 16);
+            out[pos++] = (byte) (value >>> 8);
+            out[pos++] = (byte) value;
+        }
+
+        private void put(byte[] src, int offset, int length) {
+            ensure(length);
+            System.arraycopy(src, offset, out, pos, length);
+            pos += length;
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > out.length) {
+                out = Arrays.copyOf(out, Math.max(out.length * 2, pos + extra));
+            }
+        }
+    }
+}
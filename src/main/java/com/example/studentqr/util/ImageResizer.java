@@ -0,0 +1,263 @@
+package com.example.studentqr.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+// Photo downscaler: decodes with source subsampling so only ~2x the target pixels are read,
+// then area-averages on int arrays in two separable passes and writes JPEG at a fixed quality.
+public final class ImageResizer {
+
+    public static final float DEFAULT_QUALITY = 0.85f;
+
+    // Fixed-point precision of the filter weights and of the intermediate (horizontal) pass
+    private static final int WEIGHT_BITS = 14;
+    private static final int EXTRA_BITS = 6;
+
+    private static final ThreadLocal<JpegWriter> WRITER = ThreadLocal.withInitial(JpegWriter::new);
+
+    private ImageResizer() {
+    }
+
+    // Scales to targetWidth, keeping the aspect ratio; never upscales
+    public static byte[] resize(byte[] source, int targetWidth) throws IOException {
+        return resizeAll(source, new int[]{targetWidth})[0];
+    }
+
+    // Several widths from a single decode. Smaller outputs are averaged from an already scaled
+    // image when it is still at least twice their width, which keeps the result exact enough.
+    public static byte[][] resizeAll(byte[] source, int[] targetWidths) throws IOException {
+        int largest = 1;
+        for (int width : targetWidths) {
+            largest = Math.max(largest, width);
+        }
+        Pixels decoded = decode(source, largest);
+
+        Integer[] order = new Integer[targetWidths.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(targetWidths[b], targetWidths[a]));
+
+        byte[][] out = new byte[targetWidths.length][];
+        List<Pixels> scaled = new ArrayList<>();
+        for (int index : order) {
+            int width = Math.max(1, Math.min(targetWidths[index], decoded.width));
+            Pixels base = decoded;
+            for (Pixels candidate : scaled) {
+                if (candidate.width >= 2 * width && candidate.width < base.width) {
+                    base = candidate;
+                }
+            }
+            Pixels result = downscale(base, width);
+            scaled.add(result);
+            out[index] = WRITER.get().write(result);
+        }
+        return out;
+    }
+
+    private static Pixels decode(byte[] source, int targetWidth) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            ImageReader reader = readerFor(input);
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int step = Math.max(1, sourceWidth / (2 * targetWidth));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return Pixels.of(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReader readerFor(ImageInputStream input) throws IOException {
+        if (input == null) {
+            throw new IOException("Image could not be read");
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            throw new IOException("Unsupported image format");
+        }
+        return readers.next();
+    }
+
+    private static Pixels downscale(Pixels src, int width) {
+        int height = Math.max(1, (int) Math.round((double) src.height * width / src.width));
+        if (width == src.width && height == src.height) {
+            return src;
+        }
+
+        Filter horizontal = Filter.of(src.width, width);
+        Filter vertical = Filter.of(src.height, height);
+
+        // Horizontal pass: src.height rows of `width` pixels, 3 channels, EXTRA_BITS of headroom
+        int[] rows = new int[src.height * width * 3];
+        int shift = WEIGHT_BITS - EXTRA_BITS;
+        int round = 1 << (shift - 1);
+        for (int y = 0; y < src.height; y++) {
+            int srcRow = y * src.width;
+            int dst = y * width * 3;
+            for (int x = 0; x < width; x++) {
+                int r = 0;
+                int g = 0;
+                int b = 0;
+                int start = horizontal.start[x];
+                int offset = horizontal.offset[x];
+                for (int k = 0; k < horizontal.count[x]; k++) {
+                    int rgb = src.rgb[srcRow + start + k];
+                    int w = horizontal.weights[offset + k];
+                    r += ((rgb >> 16) & 0xFF) * w;
+                    g += ((rgb >> 8) & 0xFF) * w;
+                    b += (rgb & 0xFF) * w;
+                }
+                rows[dst++] = (r + round) >> shift;
+                rows[dst++] = (g + round) >> shift;
+                rows[dst++] = (b + round) >> shift;
+            }
+        }
+
+        // Vertical pass back to packed RGB
+        int[] out = new int[width * height];
+        int finalShift = WEIGHT_BITS + EXTRA_BITS;
+        int finalRound = 1 << (finalShift - 1);
+        int stride = width * 3;
+        for (int y = 0; y < height; y++) {
+            int start = vertical.start[y];
+            int offset = vertical.offset[y];
+            int count = vertical.count[y];
+            for (int x = 0; x < width; x++) {
+                int r = 0;
+                int g = 0;
+                int b = 0;
+                int column = x * 3;
+                for (int k = 0; k < count; k++) {
+                    int w = vertical.weights[offset + k];
+                    int i = (start + k) * stride + column;
+                    r += rows[i] * w;
+                    g += rows[i + 1] * w;
+                    b += rows[i + 2] * w;
+                }
+                out[y * width + x] = (clamp((r + finalRound) >> finalShift) << 16)
+                        | (clamp((g + finalRound) >> finalShift) << 8)
+                        | clamp((b + finalRound) >> finalShift);
+            }
+        }
+        return new Pixels(width, height, out);
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+
+    private record Pixels(int width, int height, int[] rgb) {
+
+        static Pixels of(BufferedImage image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int[] rgb = new int[width * height];
+
+            // JPEG decodes to 3-byte BGR; read the raster directly instead of per-pixel getRGB color conversion
+            if (image.getType() == BufferedImage.TYPE_3BYTE_BGR
+                    && image.getRaster().getDataBuffer() instanceof DataBufferByte buffer
+                    && buffer.getNumBanks() == 1 && buffer.getData().length == width * height * 3) {
+                byte[] data = buffer.getData();
+                for (int i = 0, p = 0; i < rgb.length; i++, p += 3) {
+                    rgb[i] = ((data[p + 2] & 0xFF) << 16) | ((data[p + 1] & 0xFF) << 8) | (data[p] & 0xFF);
+                }
+            } else {
+                image.getRGB(0, 0, width, height, rgb, 0, width);
+            }
+            return new Pixels(width, height, rgb);
+        }
+    }
+
+    // Area-averaging (box) weights: each output sample covers `scale` input samples,
+    // partially covered edge samples get fractional weight. Weights sum to 1 << WEIGHT_BITS.
+    private record Filter(int[] start, int[] count, int[] offset, int[] weights) {
+
+        static Filter of(int sourceLength, int targetLength) {
+            double scale = (double) sourceLength / targetLength;
+            int maxTaps = (int) Math.ceil(scale) + 1;
+            int[] start = new int[targetLength];
+            int[] count = new int[targetLength];
+            int[] offset = new int[targetLength];
+            int[] weights = new int[targetLength * maxTaps];
+            int one = 1 << WEIGHT_BITS;
+
+            int next = 0;
+            for (int i = 0; i < targetLength; i++) {
+                double from = i * scale;
+                double to = Math.min(sourceLength, (i + 1) * scale);
+                int first = (int) Math.floor(from);
+                int last = Math.min(sourceLength - 1, (int) Math.ceil(to) - 1);
+
+                start[i] = first;
+                offset[i] = next;
+                int sum = 0;
+                for (int j = first; j <= last; j++) {
+                    double coverage = Math.min(to, j + 1) - Math.max(from, j);
+                    int w = (int) Math.round(coverage / scale * one);
+                    weights[next++] = w;
+                    sum += w;
+                }
+                count[i] = next - offset[i];
+                // Put the rounding error on the largest tap so flat areas stay exact
+                int largest = offset[i];
+                for (int k = offset[i] + 1; k < next; k++) {
+                    if (weights[k] > weights[largest]) {
+                        largest = k;
+                    }
+                }
+                weights[largest] += one - sum;
+            }
+            return new Filter(start, count, offset, weights);
+        }
+    }
+
+    // One JPEG writer and buffer per thread, reused across images
+    private static final class JpegWriter {
+        private final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        private final ImageWriteParam param = writer.getDefaultWriteParam();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(32 * 1024);
+
+        JpegWriter() {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(DEFAULT_QUALITY);
+        }
+
+        byte[] write(Pixels pixels) throws IOException {
+            BufferedImage image = new BufferedImage(pixels.width, pixels.height, BufferedImage.TYPE_INT_RGB);
+            int[] target = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            System.arraycopy(pixels.rgb, 0, target, 0, target.length);
+
+            buffer.reset();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(buffer)) {
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.setOutput(null);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.studentqr.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded, byte-weighted LRU cache of rendered QR PNGs keyed by payload hash + size
+@Component
+public class QRCodeCache {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Value("${qr.cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    // Access-ordered so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CachedImage> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Set<String>> keysByStudent = new HashMap<>();
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public static String key(String payload, int width, int height) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(payload.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2 + 12);
+            for (byte b : hash) {
+                sb.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            return sb.append(':').append(width).append('x').append(height).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public synchronized byte[] get(String key) {
+        CachedImage cached = entries.get(key);
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached.png;
+    }
+
+    public synchronized void put(String key, byte[] png, String studentId) {
+        if (png.length > maxBytes) {
+            return;
+        }
+
+        CachedImage previous = entries.put(key, new CachedImage(png, studentId));
+        if (previous != null) {
+            currentBytes -= previous.png.length;
+            untag(key, previous.studentId);
+        }
+        currentBytes += png.length;
+        if (studentId != null) {
+            keysByStudent.computeIfAbsent(studentId, id -> new HashSet<>()).add(key);
+        }
+
+        Iterator<Map.Entry<String, CachedImage>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, CachedImage> eldest = it.next();
+            it.remove();
+            currentBytes -= eldest.getValue().png.length;
+            untag(eldest.getKey(), eldest.getValue().studentId);
+            evictions.incrementAndGet();
+        }
+    }
+
+    // Drop every image rendered for a student (called when the student is saved or deleted)
+    public synchronized void invalidateStudent(String studentId) {
+        if (studentId == null) {
+            return;
+        }
+        Set<String> keys = keysByStudent.remove(studentId);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            CachedImage removed = entries.remove(key);
+            if (removed != null) {
+                currentBytes -= removed.png.length;
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        keysByStudent.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+
+        stats.put("entries", entries.size());
+        stats.put("bytes", currentBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("hitRate", requests > 0 ? (hitCount * 100.0 / requests) : 0.0);
+        return stats;
+    }
+
+    private void untag(String key, String studentId) {
+        if (studentId == null) {
+            return;
+        }
+        Set<String> keys = keysByStudent.get(studentId);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByStudent.remove(studentId);
+            }
+        }
+    }
+
+    private record CachedImage(byte[] png, String studentId) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.studentqr.util;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Content-addressed QR image store under qr.directory.
+// Files live at <root>/<h0h1>/<h2h3>/<sha256>.png and are referenced by that relative key.
+@Component
+public class QRCodeStore {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Value("${qr.directory:qr-codes}")
+    private String qrDirectory;
+
+    private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}");
+    private static final Pattern STORED_FILE = Pattern.compile("[0-9a-f]{64}\\.png");
+
+    private Path root;
+
+    // Writers share the read lock; the sweeper takes the write lock for each delete
+    private final ReentrantReadWriteLock sweepLock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void init() {
+        root = Paths.get(qrDirectory).toAbsolutePath().normalize();
+        try {
+            if (!Files.exists(root)) {
+                Files.createDirectories(root);
+                System.out.println("Created QR directory: " + root);
+            }
+        } catch (IOException e) {
+            System.err.println("Error creating QR directory: " + e.getMessage());
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    // Write PNG bytes and return their relative key; identical content is stored once
+    public String write(byte[] png) throws IOException {
+        String hash = sha256Hex(png);
+        String key = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ".png";
+        Path target = root.resolve(key);
+        sweepLock.readLock().lock();
+        try {
+            if (Files.exists(target)) {
+                try {
+                    // Reusing an unreferenced file: restart its grace period so the sweeper leaves it alone
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                    return key;
+                } catch (NoSuchFileException e) {
+                    // Removed since the check; write it again below
+                }
+            }
+
+            Path shard = target.getParent();
+            Files.createDirectories(shard);
+            // Write next to the target, then rename, so readers never see a partial file
+            Path temp = Files.createTempFile(shard, ".qr-", ".tmp");
+            try {
+                Files.write(temp, png);
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (FileAlreadyExistsException e) {
+                // Another writer stored the same content first
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return key;
+        } finally {
+            sweepLock.readLock().unlock();
+        }
+    }
+
+    // True for files of the sharded layout (<h0h1>/<h2h3>/<sha256>.png and its .qr-*.tmp files);
+    // legacy flat files at the root and anything else in the directory are not the store's to sweep
+    public boolean isShardedFile(Path path) {
+        Path relative = root.relativize(path.toAbsolutePath().normalize());
+        if (relative.getNameCount() != 3
+                || !SHARD.matcher(relative.getName(0).toString()).matches()
+                || !SHARD.matcher(relative.getName(1).toString()).matches()) {
+            return false;
+        }
+        String name = relative.getFileName().toString();
+        return STORED_FILE.matcher(name).matches() || (name.startsWith(".qr-") && name.endsWith(".tmp"));
+    }
+
+    // Deletes the file when it was last written or reused before the cutoff; returns the bytes freed,
+    // or -1 when it was kept. Holds out write() so a file cannot be reused and deleted at once.
+    public long deleteIfOlderThan(Path path, Instant cutoff) throws IOException {
+        sweepLock.writeLock().lock();
+        try {
+            if (Files.getLastModifiedTime(path).toInstant().isAfter(cutoff)) {
+                return -1;
+            }
+            long size = Files.size(path);
+            return Files.deleteIfExists(path) ? size : -1;
+        } finally {
+            sweepLock.writeLock().unlock();
+        }
+    }
+
+    // Resolve a stored key; absolute paths written before the sharded layout are still honoured, but
+    // only inside the store directory, where the flat legacy files were written
+    public Path resolve(String key) {
+        Path resolved = root.resolve(Paths.get(key)).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new IllegalArgumentException("QR key escapes the store: " + key);
+        }
+        return resolved;
+    }
+
+    public byte[] read(String key) throws IOException {
+        return Files.readAllBytes(resolve(key));
+    }
+
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    public boolean delete(String key) {
+        try {
+            return Files.deleteIfExists(resolve(key));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,61 +2,34 @@ package com.example.studentqr.util;
 
 import com.example.studentqr.model.Student;
 import com.google.zxing.BarcodeFormat;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
-import jakarta.annotation.PostConstruct;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-//import javax.annotation.PostConstruct;
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Base64;
 
 @Component
 public class QRCodeUtil {
 
-    @Value("${qr.directory:qr-codes}")
-    private String qrDirectory;
+    public static final int STUDENT_CARD_SIZE = 350;
 
-    @PostConstruct
-    public void init() {
-        try {
-            Path dirPath = Paths.get(qrDirectory);
-            if (!Files.exists(dirPath)) {
-                Files.createDirectories(dirPath);
-                System.out.println("Created QR directory: " + dirPath.toAbsolutePath());
-            }
-        } catch (Exception e) {
-            System.err.println("Error creating QR directory: " + e.getMessage());
-        }
-    }
+    @Autowired
+    private QRCodeCache qrCodeCache;
 
-    // Generate QR code and save to file
-    public String generateQRCodeImage(String text, int width, int height, String fileName) throws Exception {
-        try {
-            Path dirPath = Paths.get(qrDirectory);
-            if (!Files.exists(dirPath)) {
-                Files.createDirectories(dirPath);
-            }
+    @Autowired
+    private QRPayloadCodec qrPayloadCodec;
 
-            String cleanFileName = fileName.replaceAll("[^a-zA-Z0-9._-]", "_");
+    @Autowired
+    private QRCodeStore qrCodeStore;
 
+    // Generate QR code and save it to the QR store, returning the store key
+    public String generateQRCodeImage(String text, int width, int height) throws Exception {
+        try {
             QRCodeWriter qrCodeWriter = new QRCodeWriter();
             BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height);
 
-            Path path = Paths.get(qrDirectory + "/" + cleanFileName);
-            MatrixToImageWriter.writeToPath(bitMatrix, "PNG", path);
-
-            System.out.println("QR code saved to: " + path.toAbsolutePath());
-            return path.toAbsolutePath().toString();
-
+            return qrCodeStore.write(BitMatrixPngEncoder.encode(bitMatrix));
         } catch (Exception e) {
             throw new Exception("Failed to generate QR code image: " + e.getMessage(), e);
         }
@@ -64,24 +37,76 @@ public class QRCodeUtil {
 
     // Generate QR code and return as Base64 string
     public String generateQRCodeBase64(String text, int width, int height) throws Exception {
+        return Base64.getEncoder().encodeToString(generateQRCodePng(text, width, height, null));
+    }
+
+    // Generate the display QR code for a student (cached until the student is saved again)
+    public String generateStudentQRCodeBase64(Student student, int size) throws Exception {
+        byte[] png = generateQRCodePng(buildStudentData(student), size, size, student.getId());
+        return Base64.getEncoder().encodeToString(png);
+    }
+
+    // Generate QR code as PNG bytes, served from the cache when the same payload was rendered before
+    public byte[] generateQRCodePng(String text, int width, int height, String studentId) throws Exception {
+        String key = QRCodeCache.key(text, width, height);
+        byte[] cached = qrCodeCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
         try {
             QRCodeWriter qrCodeWriter = new QRCodeWriter();
             BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height);
 
-            BufferedImage bufferedImage = MatrixToImageWriter.toBufferedImage(bitMatrix);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(bufferedImage, "PNG", baos);
-
-            String base64 = Base64.getEncoder().encodeToString(baos.toByteArray());
-            return base64;
+            byte[] png = BitMatrixPngEncoder.encode(bitMatrix);
+            qrCodeCache.put(key, png, studentId);
+            return png;
 
         } catch (Exception e) {
             throw new Exception("Failed to generate QR code Base64: " + e.getMessage(), e);
         }
     }
 
+    // Data embedded in the QR codes shown on the list, view and download pages
+    public String buildStudentData(Student student) {
+        String compact = qrPayloadCodec.encode(student.getId());
+        if (compact != null) {
+            return compact;
+        }
+        // Ids that are not UUIDs (e.g. supplied through the API) keep the legacy text format
+        return String.format(
+                "ID: %s\nName: %s\nEmail: %s\nCourse: %s\nRoll: %s",
+                student.getId(),
+                student.getName(),
+                student.getEmail(),
+                student.getCourse(),
+                student.getRollNumber()
+        );
+    }
+
     // Generate QR code for student with photo info
     public String generateStudentQRCode(Student student) throws Exception {
+        return generateQRCodeImage(buildStudentCardData(student), STUDENT_CARD_SIZE, STUDENT_CARD_SIZE);
+    }
+
+    // Render the printable student QR code in memory
+    public byte[] generateStudentCardPng(Student student) throws Exception {
+        try {
+            BitMatrix bitMatrix = new QRCodeWriter().encode(buildStudentCardData(student),
+                    BarcodeFormat.QR_CODE, STUDENT_CARD_SIZE, STUDENT_CARD_SIZE);
+            return BitMatrixPngEncoder.encode(bitMatrix);
+        } catch (Exception e) {
+            throw new Exception("Failed to generate student QR code: " + e.getMessage(), e);
+        }
+    }
+
+    // Data embedded in the printable (ID card) QR code
+    public String buildStudentCardData(Student student) {
+        String compact = qrPayloadCodec.encode(student.getId());
+        if (compact != null) {
+            return compact;
+        }
+
         StringBuilder studentData = new StringBuilder();
 
         studentData.append("=== STUDENT INFORMATION ===\n");
@@ -93,74 +118,45 @@ public class QRCodeUtil {
         studentData.append("Generated: ").append(java.time.LocalDateTime.now()).append("\n");
 
         if (student.hasPhoto()) {
-            studentData.append("Photo: Available (Base64 length: ").append(student.getPhotoBase64().length()).append(")\n");
+            studentData.append("Photo: Available\n");
         } else {
             studentData.append("Photo: Not available\n");
         }
 
         studentData.append("===========================");
-
-        String fileName = "student_" + student.getRollNumber() + "_" + System.currentTimeMillis() + ".png";
-        return generateQRCodeImage(studentData.toString(), 350, 350, fileName);
+        return studentData.toString();
     }
 
     // Read QR code file as Base64
-    public String getQRCodeAsBase64(String filePath) throws Exception {
-        Path path = Paths.get(filePath);
-        if (!Files.exists(path)) {
-            throw new RuntimeException("QR Code file not found: " + filePath);
+    public String getQRCodeAsBase64(String qrCodePath) throws Exception {
+        if (!qrCodeStore.exists(qrCodePath)) {
+            throw new RuntimeException("QR Code file not found: " + qrCodePath);
         }
-
-        byte[] fileContent = Files.readAllBytes(path);
-        return Base64.getEncoder().encodeToString(fileContent);
+        return Base64.getEncoder().encodeToString(qrCodeStore.read(qrCodePath));
     }
 
     // Delete QR code file
-    public boolean deleteQRCodeFile(String filePath) {
-        try {
-            Path path = Paths.get(filePath);
-            return Files.deleteIfExists(path);
-        } catch (Exception e) {
-            return false;
-        }
+    public boolean deleteQRCodeFile(String qrCodePath) {
+        return qrCodeStore.delete(qrCodePath);
     }
 
     // Generate photo thumbnail (for list view)
-    public String generatePhotoThumbnail(String photoBase64, int maxWidth) throws Exception {
-        if (photoBase64 == null || photoBase64.isEmpty()) {
+    public String generatePhotoThumbnail(byte[] imageBytes, int maxWidth) throws Exception {
+        byte[] thumbnail = generatePhotoThumbnailBytes(imageBytes, maxWidth);
+        return thumbnail != null ? Base64.getEncoder().encodeToString(thumbnail) : null;
+    }
+
+    // Generate photo thumbnail as JPEG bytes
+    public byte[] generatePhotoThumbnailBytes(byte[] imageBytes, int maxWidth) throws Exception {
+        if (imageBytes == null || imageBytes.length == 0) {
             return null;
         }
 
         try {
-            // Decode Base64 to image
-            byte[] imageBytes = Base64.getDecoder().decode(photoBase64);
-            ByteArrayInputStream bais = new ByteArrayInputStream(imageBytes);
-            BufferedImage originalImage = ImageIO.read(bais);
-
-            if (originalImage == null) {
-                return null;
-            }
-
-            // Calculate new dimensions
-            int originalWidth = originalImage.getWidth();
-            int originalHeight = originalImage.getHeight();
-            int newWidth = maxWidth;
-            int newHeight = (int) ((double) originalHeight / originalWidth * maxWidth);
-
-            // Create thumbnail
-            BufferedImage resizedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
-            java.awt.Graphics2D g = resizedImage.createGraphics();
-            g.drawImage(originalImage, 0, 0, newWidth, newHeight, null);
-            g.dispose();
-
-            // Convert back to Base64
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(resizedImage, "JPEG", baos);
-            return Base64.getEncoder().encodeToString(baos.toByteArray());
-
+            return ImageResizer.resize(imageBytes, maxWidth);
         } catch (Exception e) {
             System.err.println("Error generating thumbnail: " + e.getMessage());
             return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package com.example.studentqr.util;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.FormatException;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Finds a QR code in a camera frame. Only the region of interest is decoded from the JPEG, with
+// source subsampling so no more than about maxSide pixels per side are read; the pixels go
+// straight into a reused luminance buffer for ZXing. One instance per thread: the JPEG reader,
+// the QR reader and the buffer are all reused between frames.
+public final class QRFrameDecoder {
+
+    // Part of the frame to look in, as fractions of its width and height
+    public record Region(double x, double y, double width, double height) {
+
+        public static final Region FULL = new Region(0, 0, 1, 1);
+
+        public Region {
+            x = clamp(x);
+            y = clamp(y);
+            width = Math.min(clamp(width), 1 - x);
+            height = Math.min(clamp(height), 1 - y);
+        }
+
+        public static Region centered(double fraction) {
+            double size = clamp(fraction);
+            return new Region((1 - size) / 2, (1 - size) / 2, size, size);
+        }
+
+        private static double clamp(double value) {
+            return Double.isNaN(value) ? 0 : Math.max(0, Math.min(1, value));
+        }
+    }
+
+    // text is null when the frame holds no readable code; width and height are of the decoded region
+    public record Result(String text, int width, int height) {
+    }
+
+    private final ImageReader jpegReader = ImageIO.getImageReadersByFormatName("jpeg").next();
+    private final QRCodeReader qrReader = new QRCodeReader();
+    private final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+    private final int maxSide;
+    private byte[] luminance = new byte[0];
+    private int[] row = new int[0];
+
+    public QRFrameDecoder(int maxSide, boolean tryHarder) {
+        this.maxSide = Math.max(64, maxSide);
+        if (tryHarder) {
+            hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+        }
+    }
+
+    public Result decode(byte[] jpeg, Region region) throws IOException {
+        BufferedImage image = read(jpeg, region);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        fillLuminance(image);
+
+        PlanarYUVLuminanceSource source = new PlanarYUVLuminanceSource(luminance, width, height,
+                0, 0, width, height, false);
+        try {
+            return new Result(qrReader.decode(new BinaryBitmap(new HybridBinarizer(source)), hints).getText(),
+                    width, height);
+        } catch (NotFoundException | ChecksumException | FormatException e) {
+            return new Result(null, width, height);
+        } finally {
+            qrReader.reset();
+        }
+    }
+
+    private BufferedImage read(byte[] jpeg, Region region) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(jpeg))) {
+            jpegReader.setInput(input, true, true);
+            int frameWidth = jpegReader.getWidth(0);
+            int frameHeight = jpegReader.getHeight(0);
+
+            int x = (int) (region.x() * frameWidth);
+            int y = (int) (region.y() * frameHeight);
+            int width = Math.max(1, Math.min(frameWidth - x, (int) Math.round(region.width() * frameWidth)));
+            int height = Math.max(1, Math.min(frameHeight - y, (int) Math.round(region.height() * frameHeight)));
+            int step = Math.max(1, (Math.max(width, height) + maxSide - 1) / maxSide);
+
+            ImageReadParam param = jpegReader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(x, y, width, height));
+            if (step > 1) {
+                param.setSourceSubsampling(step, step, 0, 0);
+            }
+            return jpegReader.read(0, param);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Not a JPEG the reader can make sense of
+            throw new IOException("Frame could not be read: " + e.getMessage(), e);
+        } finally {
+            jpegReader.reset();
+        }
+    }
+
+    // Same weighting as ZXing's RGBLuminanceSource, (R + 2G + B) / 4
+    private void fillLuminance(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (luminance.length < width * height) {
+            luminance = new byte[width * height];
+        }
+
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            image.getRaster().getDataElements(0, 0, width, height, luminance);
+        } else if (image.getType() == BufferedImage.TYPE_3BYTE_BGR
+                && image.getRaster().getDataBuffer() instanceof DataBufferByte buffer) {
+            // What the JPEG reader returns for colour frames; read the raster directly
+            byte[] bgr = buffer.getData();
+            for (int i = 0, p = 0; i < width * height; i++, p += 3) {
+                luminance[i] = (byte) (((bgr[p + 2] & 0xFF) + 2 * (bgr[p + 1] & 0xFF) + (bgr[p] & 0xFF)) >> 2);
+            }
+        } else {
+            if (row.length < width) {
+                row = new int[width];
+            }
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    int rgb = row[x];
+                    luminance[offset + x] = (byte) ((((rgb >> 16) & 0xFF) + 2 * ((rgb >> 8) & 0xFF) + (rgb & 0xFF)) >> 2);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.studentqr.util;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.UUID;
+
+// Compact, signed student QR payload: "SQ1:" + 32 hex digits of the student UUID + ":" + 8 char MAC.
+// Every character is in the QR alphanumeric set, so ZXing encodes it in alphanumeric mode
+// at a much lower QR version than the old multi-line text block.
+@Component
+public class QRPayloadCodec {
+
+    public static final String PREFIX = "SQ1:";
+    private static final byte FORMAT_VERSION = 1;
+    private static final int ID_HEX_LENGTH = 32;
+    private static final int MAC_CHARS = 8;
+    public static final int PAYLOAD_LENGTH = PREFIX.length() + ID_HEX_LENGTH + 1 + MAC_CHARS;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final char[] BASE32 = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567".toCharArray();
+
+    @Value("${qr.payload.secret:}")
+    private String secret;
+
+    private SecretKeySpec key;
+
+    // Per-thread MAC state and buffers so parsing a scan allocates nothing but the resulting id
+    private final ThreadLocal<MacWorkspace> workspace = ThreadLocal.withInitial(this::newWorkspace);
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            System.err.println("⚠️⚠️⚠️ qr.payload.secret is not set: signing QR codes with a random key for this run only. "
+                    + "Codes printed now will not scan after a restart. Set qr.payload.secret (QR_PAYLOAD_SECRET) in production.");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        key = new SecretKeySpec(keyBytes, "HmacSHA256");
+    }
+
+    // Returns the compact payload, or null when the id is not a UUID and must use the legacy format
+    public String encode(String studentId) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(studentId);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+        if (!uuid.toString().equals(studentId)) {
+            return null;
+        }
+
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        long mac = computeMac(msb, lsb);
+
+        char[] out = new char[PAYLOAD_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), out, 0);
+        int pos = PREFIX.length();
+        pos = writeHex(msb, out, pos);
+        pos = writeHex(lsb, out, pos);
+        out[pos++] = ':';
+        for (int i = MAC_CHARS - 1; i >= 0; i--) {
+            out[pos++] = BASE32[(int) (mac >>> (i * 5)) & 31];
+        }
+        return new String(out);
+    }
+
+    // Returns the student id for a valid compact payload, null if the data is not a compact payload.
+    // Throws if the payload looks compact but the MAC does not match.
+    public String parse(CharSequence data) {
+        if (data == null) {
+            return null;
+        }
+        int start = skipWhitespace(data, 0);
+        int end = data.length();
+        while (end > start && Character.isWhitespace(data.charAt(end - 1))) {
+            end--;
+        }
+        if (end - start != PAYLOAD_LENGTH || !startsWith(data, start)) {
+            return null;
+        }
+
+        int pos = start + PREFIX.length();
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < ID_HEX_LENGTH; i++) {
+            int nibble = Character.digit(data.charAt(pos + i), 16);
+            if (nibble < 0) {
+                return null;
+            }
+            if (i < 16) {
+                msb = (msb << 4) | nibble;
+            } else {
+                lsb = (lsb << 4) | nibble;
+            }
+        }
+        pos += ID_HEX_LENGTH;
+        if (data.charAt(pos++) != ':') {
+            return null;
+        }
+
+        long expected = computeMac(msb, lsb);
+        for (int i = MAC_CHARS - 1; i >= 0; i--) {
+            char c = Character.toUpperCase(data.charAt(pos++));
+            if (c != BASE32[(int) (expected >>> (i * 5)) & 31]) {
+                throw new IllegalArgumentException("QR code signature is invalid");
+            }
+        }
+        return new UUID(msb, lsb).toString();
+    }
+
+    private boolean startsWith(CharSequence data, int offset) {
+        if (data.length() - offset < PREFIX.length()) {
+            return false;
+        }
+        for (int i = 0; i < PREFIX.length(); i++) {
+            if (Character.toUpperCase(data.charAt(offset + i)) != PREFIX.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(CharSequence data, int pos) {
+        while (pos < data.length() && Character.isWhitespace(data.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int writeHex(long value, char[] out, int pos) {
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            out[pos++] = HEX[(int) (value >>> shift) & 0xF];
+        }
+        return pos;
+    }
+
+    // First 40 bits of HMAC-SHA256(version || uuid bytes)
+    private long computeMac(long msb, long lsb) {
+        MacWorkspace ws = workspace.get();
+        byte[] input = ws.input;
+        input[0] = FORMAT_VERSION;
+        for (int i = 0; i < 8; i++) {
+            input[1 + i] = (byte) (msb >>> (56 - i * 8));
+            input[9 + i] = (byte) (lsb >>> (56 - i * 8));
+        }
+        try {
+            ws.mac.update(input, 0, input.length);
+            ws.mac.doFinal(ws.output, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        long mac = 0;
+        for (int i = 0; i < 5; i++) {
+            mac = (mac << 8) | (ws.output[i] & 0xFF);
+        }
+        return mac;
+    }
+
+    private MacWorkspace newWorkspace() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return new MacWorkspace(mac, new byte[17], new byte[mac.getMacLength()]);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private record MacWorkspace(Mac mac, byte[] input, byte[] output) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.studentqr.repository;
+
+import com.example.studentqr.model.Attendance;
+import com.example.studentqr.model.Student;
+import com.example.studentqr.repository.AttendanceRepositoryCustom.UpsertOutcome;
+import com.example.studentqr.repository.AttendanceRepositoryCustom.UpsertResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs the MERGE statements against H2; not transactional, so concurrent marks really commit
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AttendanceRepositoryTest {
+
+	private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+	@Autowired
+	private AttendanceRepository attendanceRepository;
+
+	@Autowired
+	private StudentRepository studentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final List<Student> students = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		attendanceRepository.deleteAllInBatch();
+		studentRepository.deleteAllInBatch();
+		students.clear();
+		for (int i = 0; i < 4; i++) {
+			students.add(studentRepository.save(new Student("s" + i, "Student " + i, "s" + i + "@example.com",
+					"Physics", "R" + i)));
+		}
+	}
+
+	private static Attendance mark(Student student, String status, LocalDateTime markedAt) {
+		Attendance attendance = new Attendance(student, status);
+		attendance.setAttendanceDate(DAY);
+		attendance.setMarkedAt(markedAt);
+		attendance.setMarkedBy("test");
+		return attendance;
+	}
+
+	private long rows(Student student) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance WHERE student_id = ? AND attendance_date = ?",
+				Long.class, student.getId(), DAY);
+	}
+
+	private String status(Student student) {
+		return jdbcTemplate.queryForObject("SELECT status FROM attendance WHERE student_id = ? AND attendance_date = ?",
+				String.class, student.getId(), DAY);
+	}
+
+	@Test
+	void upsertInsertsThenReplacesAndReturnsPreviousStatus() {
+		Student student = students.get(0);
+		LocalDateTime at = DAY.atTime(8, 0);
+
+		assertEquals(new UpsertResult(UpsertOutcome.INSERTED, null),
+				attendanceRepository.upsert(mark(student, "PRESENT", at)));
+		assertEquals(new UpsertResult(UpsertOutcome.UPDATED, "PRESENT"),
+				attendanceRepository.upsert(mark(student, "LATE", at.plusMinutes(5))));
+		assertEquals(1, rows(student));
+		assertEquals("LATE", status(student));
+	}
+
+	@Test
+	void olderMarkNeverReplacesANewerOne() {
+		Student student = students.get(0);
+		LocalDateTime at = DAY.atTime(9, 0);
+
+		attendanceRepository.upsert(mark(student, "LATE", at));
+		// A buffered or offline mark taken earlier, written afterwards
+		assertEquals(UpsertOutcome.SKIPPED_OLDER,
+				attendanceRepository.upsert(mark(student, "PRESENT", at.minusMinutes(30))).outcome());
+		assertEquals(UpsertOutcome.SKIPPED_OLDER,
+				attendanceRepository.upsertAll(List.of(mark(student, "ABSENT", at.minusMinutes(10)))).get(0).outcome());
+
+		assertEquals(1, rows(student));
+		assertEquals("LATE", status(student));
+	}
+
+	@Test
+	void upsertAllWritesEveryStudentOnce() {
+		LocalDateTime at = DAY.atTime(8, 0);
+		List<Attendance> batch = new ArrayList<>();
+		for (Student student : students) {
+			batch.add(mark(student, "PRESENT", at));
+		}
+		batch.add(mark(students.get(0), "LATE", at.plusMinutes(1)));
+
+		List<UpsertResult> results = attendanceRepository.upsertAll(batch);
+
+		assertEquals(batch.size(), results.size());
+		assertEquals(UpsertOutcome.SKIPPED_OLDER, results.get(0).outcome());
+		assertEquals(UpsertOutcome.INSERTED, results.get(batch.size() - 1).outcome());
+		for (Student student : students) {
+			assertEquals(1, rows(student));
+		}
+		assertEquals("LATE", status(students.get(0)));
+	}
+
+	@Test
+	void concurrentMarksForTheSameStudentAndDayNeverFail() throws Exception {
+		int threads = 16;
+		int rounds = 25;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (int round = 0; round < rounds; round++) {
+				jdbcTemplate.update("DELETE FROM attendance");
+				CountDownLatch start = new CountDownLatch(1);
+				List<Future<?>> futures = new ArrayList<>();
+				for (int t = 0; t < threads; t++) {
+					boolean batch = t % 2 == 0;
+					String status = t % 3 == 0 ? "LATE" : "PRESENT";
+					LocalDateTime at = DAY.atTime(8, 0).plusSeconds(t);
+					futures.add(pool.submit((Callable<Void>) () -> {
+						start.await();
+						if (batch) {
+							attendanceRepository.upsertAll(List.of(mark(students.get(0), status, at),
+									mark(students.get(1), status, at)));
+						} else {
+							attendanceRepository.upsert(mark(students.get(0), status, at));
+						}
+						return null;
+					}));
+				}
+				start.countDown();
+				for (Future<?> future : futures) {
+					future.get();
+				}
+				assertEquals(1, rows(students.get(0)));
+				assertEquals(1, rows(students.get(1)));
+				// Whatever the interleaving, the newest mark stands: thread 15 for s0, thread 14 for s1
+				assertEquals("LATE", status(students.get(0)));
+				assertEquals("PRESENT", status(students.get(1)));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class CourseDirectoryTest {
+
+	private static Student student(String id, String course) {
+		Student student = new Student();
+		student.setId(id);
+		student.setName("Student " + id);
+		student.setRollNumber("R-" + id);
+		student.setCourse(course);
+		return student;
+	}
+
+	@Test
+	void countsStudentsPerCourseInNameOrder() {
+		CourseDirectory directory = new CourseDirectory();
+		directory.onStudentSaved(student("1", "Physics"));
+		directory.onStudentSaved(student("2", "Chemistry"));
+		directory.onStudentSaved(student("3", "Physics"));
+
+		assertEquals(List.of("Chemistry", "Physics"), directory.getCourses());
+		assertEquals(Map.of("Chemistry", 1, "Physics", 2), directory.getStudentCounts());
+		assertEquals(0, directory.getStudentCount("Biology"));
+	}
+
+	@Test
+	void followsCourseChangesAndDeletes() {
+		CourseDirectory directory = new CourseDirectory();
+		directory.onStudentSaved(student("1", "Physics"));
+		directory.onStudentSaved(student("2", "Chemistry"));
+
+		// Saving again with a new course moves the student instead of counting them twice
+		directory.onStudentSaved(student("2", "Physics"));
+		assertEquals(Map.of("Physics", 2), directory.getStudentCounts());
+		assertFalse(directory.hasCourse("Chemistry"));
+
+		directory.onStudentDeleted("1");
+		directory.onStudentDeleted("1");
+		assertEquals(1, directory.getStudentCount("Physics"));
+
+		directory.onStudentDeleted("2");
+		assertEquals(List.of(), directory.getCourses());
+	}
+}
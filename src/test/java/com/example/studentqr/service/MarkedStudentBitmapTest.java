@@ -0,0 +1,68 @@
+package com.example.studentqr.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MarkedStudentBitmapTest {
+
+	private static MarkedStudentBitmap bitmap(long windowSeconds) {
+		MarkedStudentBitmap bitmap = new MarkedStudentBitmap();
+		ReflectionTestUtils.setField(bitmap, "rescanWindowSeconds", windowSeconds);
+		return bitmap;
+	}
+
+	@Test
+	void answersRescansWithTheSameStatusOnly() {
+		MarkedStudentBitmap bitmap = bitmap(600);
+		LocalDate today = LocalDate.now();
+		LocalDateTime markedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+		bitmap.record("s1", today, "PRESENT", markedAt);
+
+		assertEquals(Optional.of(markedAt), bitmap.recentMark("s1", today, "PRESENT"));
+		assertTrue(bitmap.recentMark("s1", today, "LATE").isEmpty());
+		assertTrue(bitmap.recentMark("s2", today, "PRESENT").isEmpty());
+		assertTrue(bitmap.recentMark("s1", today.plusDays(1), "PRESENT").isEmpty());
+
+		bitmap.record("s1", today, "LATE", markedAt);
+		assertTrue(bitmap.recentMark("s1", today, "PRESENT").isEmpty());
+		assertEquals(Optional.of(markedAt), bitmap.recentMark("s1", today, "LATE"));
+	}
+
+	@Test
+	void keepsTheLatestMarkWhenMarksArriveOutOfOrder() {
+		MarkedStudentBitmap bitmap = bitmap(600);
+		LocalDate today = LocalDate.now();
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+		bitmap.record("s1", today, "LATE", now);
+		// An offline scan taken earlier, synced afterwards
+		bitmap.record("s1", today, "PRESENT", now.minusSeconds(30));
+
+		assertEquals(Optional.of(now), bitmap.recentMark("s1", today, "LATE"));
+		assertTrue(bitmap.recentMark("s1", today, "PRESENT").isEmpty());
+	}
+
+	@Test
+	void forgetsDeletedStudentsAndHonoursTheWindow() {
+		LocalDate today = LocalDate.now();
+		LocalDateTime now = LocalDateTime.now();
+
+		MarkedStudentBitmap bitmap = bitmap(600);
+		bitmap.record("s1", today, "PRESENT", now);
+		bitmap.onStudentDeleted("s1");
+		assertTrue(bitmap.recentMark("s1", today, "PRESENT").isEmpty());
+
+		MarkedStudentBitmap disabled = bitmap(0);
+		disabled.record("s1", today, "PRESENT", now);
+		assertTrue(disabled.recentMark("s1", today, "PRESENT").isEmpty());
+	}
+}
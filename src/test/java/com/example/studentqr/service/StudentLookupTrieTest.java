@@ -0,0 +1,64 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentLookupTrieTest {
+
+	private static Student student(String id, String name, String roll) {
+		Student student = new Student();
+		student.setId(id);
+		student.setName(name);
+		student.setRollNumber(roll);
+		student.setCourse("Computer Science");
+		return student;
+	}
+
+	private static List<String> ids(List<StudentLookupTrie.Match> matches) {
+		return matches.stream().map(StudentLookupTrie.Match::id).toList();
+	}
+
+	private static StudentLookupTrie trie(int maxResults) {
+		StudentLookupTrie trie = new StudentLookupTrie();
+		ReflectionTestUtils.setField(trie, "maxResults", maxResults);
+		return trie;
+	}
+
+	@Test
+	void matchesRollNumbersAndNameWords() {
+		StudentLookupTrie trie = trie(8);
+		trie.onStudentSaved(student("1", "José Álvarez", "CS-2024-001"));
+		trie.onStudentSaved(student("2", "Alice Smith", "CS-2024-002"));
+		trie.onStudentSaved(student("3", "Bob Smithers", "ME-2024-001"));
+
+		assertEquals(List.of("1", "2"), ids(trie.lookup("cs2024", 0)));
+		assertEquals(List.of("1"), ids(trie.lookup("CS-2024-001", 0)));
+		assertEquals(List.of("1"), ids(trie.lookup("alva", 0)));
+		assertEquals(List.of("1"), ids(trie.lookup("jose  alv", 0)));
+		assertEquals(List.of("2", "3"), ids(trie.lookup("smith", 0)));
+		assertEquals(List.of("2"), ids(trie.lookup("smith", 1)));
+		assertTrue(trie.lookup("xyz", 0).isEmpty());
+	}
+
+	@Test
+	void keepsTopResultsCurrentAcrossUpdatesAndDeletes() {
+		StudentLookupTrie trie = trie(2);
+		trie.onStudentSaved(student("1", "Anna A", "R1"));
+		trie.onStudentSaved(student("2", "Anna B", "R2"));
+		trie.onStudentSaved(student("3", "Anna C", "R3"));
+		assertEquals(List.of("1", "2"), ids(trie.lookup("anna", 0)));
+
+		trie.onStudentDeleted("1");
+		assertEquals(List.of("2", "3"), ids(trie.lookup("anna", 0)));
+
+		trie.onStudentSaved(student("2", "Zoe B", "R2"));
+		assertEquals(List.of("3"), ids(trie.lookup("anna", 0)));
+		assertEquals(List.of("2"), ids(trie.lookup("zoe", 0)));
+	}
+}
@@ -0,0 +1,64 @@
+package com.example.studentqr.service;
+
+import com.example.studentqr.model.Student;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentSearchIndexTest {
+
+	private static Student student(String id, String name, String roll, String course) {
+		Student student = new Student();
+		student.setId(id);
+		student.setName(name);
+		student.setRollNumber(roll);
+		student.setEmail(name.toLowerCase().replace(' ', '.') + "@example.edu");
+		student.setCourse(course);
+		return student;
+	}
+
+	private static StudentSearchIndex index() {
+		StudentSearchIndex index = new StudentSearchIndex();
+		ReflectionTestUtils.setField(index, "maxResults", 200);
+		index.onStudentSaved(student("1", "Alice Smith", "CS2024001", "Computer Science"));
+		index.onStudentSaved(student("2", "Bob Alison", "CS2024002", "Computer Science"));
+		index.onStudentSaved(student("3", "Carol Jones", "ME2024001", "Mechanical"));
+		return index;
+	}
+
+	@Test
+	void ranksRollNumberAndNamePrefixFirst() {
+		StudentSearchIndex index = index();
+
+		assertEquals(List.of("1"), index.search("cs2024001"));
+		assertEquals(List.of("1", "2"), index.search("ali"));
+		assertEquals(List.of("1", "2", "3"), index.search("2024"));
+		assertEquals(List.of("3"), index.search("mech"));
+		assertTrue(index.search("zzz").isEmpty());
+	}
+
+	@Test
+	void shortQueriesAndFieldBoundaries() {
+		StudentSearchIndex index = index();
+
+		assertEquals(List.of("3"), index.search("ME"));
+		// "h" + separator + "a" must not match across name and email
+		assertTrue(index.search("tha").isEmpty());
+	}
+
+	@Test
+	void followsUpdatesAndDeletes() {
+		StudentSearchIndex index = index();
+
+		index.onStudentSaved(student("1", "Alicia Keys", "CS2024001", "Music"));
+		assertEquals(List.of("1"), index.search("music"));
+		assertTrue(index.search("smith").isEmpty());
+
+		index.onStudentDeleted("2");
+		assertEquals(List.of("1"), index.search("ali"));
+	}
+}
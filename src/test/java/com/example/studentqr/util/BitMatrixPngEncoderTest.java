@@ -0,0 +1,35 @@
+package com.example.studentqr.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class BitMatrixPngEncoderTest {
+
+	@Test
+	void encodedPngDecodesToSamePixels() throws Exception {
+		for (int size : new int[]{100, 301, 350}) {
+			BitMatrix matrix = new QRCodeWriter().encode("ID: test-" + size, BarcodeFormat.QR_CODE, size, size);
+
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(BitMatrixPngEncoder.encode(matrix)));
+
+			assertNotNull(image);
+			assertEquals(matrix.getWidth(), image.getWidth());
+			assertEquals(matrix.getHeight(), image.getHeight());
+			for (int y = 0; y < image.getHeight(); y++) {
+				for (int x = 0; x < image.getWidth(); x++) {
+					int expected = matrix.get(x, y) ? 0x000000 : 0xFFFFFF;
+					assertEquals(expected, image.getRGB(x, y) & 0xFFFFFF, "pixel " + x + "," + y);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.studentqr.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactBitmapTest {
+
+	@Test
+	void addsRemovesAndCountsAcrossContainers() {
+		CompactBitmap bitmap = new CompactBitmap();
+		assertTrue(bitmap.add(7));
+		assertFalse(bitmap.add(7));
+		assertTrue(bitmap.add(70_000));
+		assertTrue(bitmap.add(Integer.MAX_VALUE));
+
+		assertTrue(bitmap.contains(7));
+		assertTrue(bitmap.contains(70_000));
+		assertTrue(bitmap.contains(Integer.MAX_VALUE));
+		assertFalse(bitmap.contains(8));
+		assertFalse(bitmap.contains(-1));
+		assertEquals(3, bitmap.cardinality());
+
+		assertTrue(bitmap.remove(70_000));
+		assertFalse(bitmap.remove(70_000));
+		assertFalse(bitmap.contains(70_000));
+		assertEquals(2, bitmap.cardinality());
+
+		bitmap.clear();
+		assertEquals(0, bitmap.cardinality());
+		assertFalse(bitmap.contains(7));
+	}
+
+	@Test
+	void matchesBitSetThroughDenseAndSparseConversions() {
+		CompactBitmap bitmap = new CompactBitmap();
+		BitSet expected = new BitSet();
+		Random random = new Random(42);
+
+		// Enough values in the first 65536 to turn that container into a bitmap, then thin it out again
+		for (int i = 0; i < 20_000; i++) {
+			int value = random.nextInt(140_000);
+			assertEquals(!expected.get(value), bitmap.add(value));
+			expected.set(value);
+		}
+		for (int i = 0; i < 150_000; i++) {
+			int value = random.nextInt(140_000);
+			assertEquals(expected.get(value), bitmap.remove(value));
+			expected.clear(value);
+		}
+
+		assertEquals(expected.cardinality(), bitmap.cardinality());
+		for (int value = 0; value < 140_000; value++) {
+			assertEquals(expected.get(value), bitmap.contains(value));
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.example.studentqr.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CsvReaderTest {
+
+	@Test
+	void readsQuotedFieldsAndTracksLines() throws Exception {
+		CsvReader reader = new CsvReader(new StringReader(
+				"\uFEFFname,email\r\n" +
+				"\"Smith, Jane\",jane@example.com\r\n" +
+				"\r\n" +
+				"\"Say \"\"hi\"\"\",\"two\nlines\"\n" +
+				"last,"));
+
+		assertEquals(List.of("name", "email"), reader.readRecord());
+		assertEquals(1, reader.getRecordLine());
+		assertEquals(List.of("Smith, Jane", "jane@example.com"), reader.readRecord());
+		assertEquals(2, reader.getRecordLine());
+		assertEquals(List.of("Say \"hi\"", "two\nlines"), reader.readRecord());
+		assertEquals(4, reader.getRecordLine());
+		assertEquals(List.of("last", ""), reader.readRecord());
+		assertEquals(6, reader.getRecordLine());
+		assertNull(reader.readRecord());
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.studentqr.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageResizerTest {
+
+	@Test
+	void renditionsKeepAspectRatioAndColors() throws Exception {
+		// Left half red, right half blue
+		BufferedImage source = new BufferedImage(1280, 720, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = source.createGraphics();
+		g.setColor(Color.RED);
+		g.fillRect(0, 0, 640, 720);
+		g.setColor(Color.BLUE);
+		g.fillRect(640, 0, 640, 720);
+		g.dispose();
+		ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+		ImageIO.write(source, "JPEG", jpeg);
+
+		int[] widths = {64, 100, 300, 2048};
+		byte[][] renditions = ImageResizer.resizeAll(jpeg.toByteArray(), widths);
+
+		for (int i = 0; i < widths.length; i++) {
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(renditions[i]));
+			int expectedWidth = Math.min(widths[i], 1280);
+			assertEquals(expectedWidth, image.getWidth());
+			assertEquals(Math.round(expectedWidth * 720 / 1280.0), image.getHeight());
+
+			Color left = new Color(image.getRGB(expectedWidth / 4, image.getHeight() / 2));
+			Color right = new Color(image.getRGB(expectedWidth * 3 / 4, image.getHeight() / 2));
+			assertTrue(left.getRed() > 200 && left.getBlue() < 60, "left " + left);
+			assertTrue(right.getBlue() > 200 && right.getRed() < 60, "right " + right);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.example.studentqr.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QRFrameDecoderTest {
+
+	// A 1920x1080 grey "camera frame" with a 400 px code drawn at (x, y)
+	private static byte[] frame(String text, int x, int y) throws Exception {
+		BitMatrix matrix = new QRCodeWriter().encode(text, BarcodeFormat.QR_CODE, 400, 400);
+		BufferedImage image = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(new Color(120, 130, 140));
+		g.fillRect(0, 0, 1920, 1080);
+		g.dispose();
+		for (int my = 0; my < matrix.getHeight(); my++) {
+			for (int mx = 0; mx < matrix.getWidth(); mx++) {
+				image.setRGB(x + mx, y + my, matrix.get(mx, my) ? 0x000000 : 0xFFFFFF);
+			}
+		}
+		ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+		ImageIO.write(image, "JPEG", jpeg);
+		return jpeg.toByteArray();
+	}
+
+	@Test
+	void decodesCodeInsideTheRegionAtReducedSize() throws Exception {
+		QRFrameDecoder decoder = new QRFrameDecoder(400, false);
+		byte[] centred = frame("SQ1:centre", 760, 340);
+
+		QRFrameDecoder.Result result = decoder.decode(centred, QRFrameDecoder.Region.centered(0.8));
+		assertEquals("SQ1:centre", result.text());
+		assertTrue(result.width() <= 400 && result.height() <= 400);
+
+		// The same decoder is reused for the next frame
+		assertEquals("SQ1:corner", decoder.decode(frame("SQ1:corner", 20, 20), QRFrameDecoder.Region.FULL).text());
+	}
+
+	@Test
+	void codeOutsideTheRegionIsNotFound() throws Exception {
+		QRFrameDecoder decoder = new QRFrameDecoder(800, false);
+		byte[] corner = frame("SQ1:corner", 20, 20);
+
+		assertNull(decoder.decode(corner, QRFrameDecoder.Region.centered(0.5)).text());
+		assertNull(decoder.decode(corner, new QRFrameDecoder.Region(0.6, 0.6, 5, 5)).text());
+	}
+
+	@Test
+	void rejectsDataThatIsNotAnImage() {
+		QRFrameDecoder decoder = new QRFrameDecoder(800, false);
+		assertThrows(IOException.class, () -> decoder.decode(new byte[]{1, 2, 3}, QRFrameDecoder.Region.FULL));
+	}
+}
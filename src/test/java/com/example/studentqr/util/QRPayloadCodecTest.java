@@ -0,0 +1,52 @@
+package com.example.studentqr.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QRPayloadCodecTest {
+
+	private QRPayloadCodec codec;
+
+	@BeforeEach
+	void setUp() {
+		codec = new QRPayloadCodec();
+		ReflectionTestUtils.setField(codec, "secret", "test-secret");
+		codec.init();
+	}
+
+	@Test
+	void roundTripsUuidIds() {
+		String id = UUID.randomUUID().toString();
+
+		String payload = codec.encode(id);
+
+		assertEquals(QRPayloadCodec.PAYLOAD_LENGTH, payload.length());
+		assertTrue(payload.matches("[0-9A-Z $%*+\\-./:]+"), "alphanumeric mode only");
+		assertEquals(id, codec.parse(payload));
+		assertEquals(id, codec.parse("  " + payload + "\n"));
+	}
+
+	@Test
+	void rejectsTamperedPayload() {
+		String payload = codec.encode(UUID.randomUUID().toString());
+		String otherId = codec.encode(UUID.randomUUID().toString());
+		String forged = otherId.substring(0, 37) + payload.substring(37);
+
+		assertThrows(IllegalArgumentException.class, () -> codec.parse(forged));
+	}
+
+	@Test
+	void ignoresLegacyAndNonUuidData() {
+		assertNull(codec.encode("CS001"));
+		assertNull(codec.parse("ID: 123\nName: Jane"));
+		assertNull(codec.parse("CS001"));
+	}
+}